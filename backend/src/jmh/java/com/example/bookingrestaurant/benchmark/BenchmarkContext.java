@@ -0,0 +1,91 @@
+package com.example.bookingrestaurant.benchmark;
+
+import com.example.bookingrestaurant.BookingRestaurantApplication;
+import com.example.bookingrestaurant.dto.RestaurantTableDTO;
+import com.example.bookingrestaurant.dto.UserPostDTO;
+import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.model.RoleName;
+import com.example.bookingrestaurant.services.RestaurantTableService;
+import com.example.bookingrestaurant.services.UserService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Classe responsável por subir a aplicação para os benchmarks.
+ * Usa o profile jmh, com um banco H2 em memória no modo PostgreSQL,
+ * e gera um par de chaves RSA temporário para o JWT.
+ * Também cria os dados usados pelos benchmarks através dos próprios Services.
+ */
+final class BenchmarkContext {
+
+    static final String ADMIN_EMAIL = "admin@benchmark.com";
+    static final String CUSTOMER_EMAIL = "cliente@benchmark.com";
+    static final String PASSWORD = "Benchmark@123";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... args) {
+        Path keys = generateKeys();
+
+        List<String> arguments = new ArrayList<>(List.of(args));
+        arguments.add("--jwt.public.key=file:" + keys.resolve("app.pub"));
+        arguments.add("--jwt.private.key=file:" + keys.resolve("app.key"));
+
+        SpringApplication application = new SpringApplication(BookingRestaurantApplication.class);
+        application.setAdditionalProfiles("jmh");
+        return application.run(arguments.toArray(String[]::new));
+    }
+
+    static void createUsers(ConfigurableApplicationContext context) throws Exception {
+        UserService userService = context.getBean(UserService.class);
+        userService.createUser(new UserPostDTO("Administrador", ADMIN_EMAIL, PASSWORD, RoleName.ROLE_ADMINISTRATOR));
+        userService.createUser(new UserPostDTO("Cliente", CUSTOMER_EMAIL, PASSWORD, RoleName.ROLE_CUSTOMER));
+    }
+
+    static List<Long> createTables(ConfigurableApplicationContext context, int count) {
+        RestaurantTableService tableService = context.getBean(RestaurantTableService.class);
+
+        List<Long> ids = new ArrayList<>(count);
+        for(int i = 0; i < count; i++){
+            RestaurantTableDTO data = new RestaurantTableDTO("MESA-" + i, 2 + (i % 19), RestaurantTableStatus.AVAILABLE, "SALAO-" + (i % 4));
+            ids.add(tableService.createRestaurantTable(data, ADMIN_EMAIL).getId());
+        }
+        return ids;
+    }
+
+    private static Path generateKeys() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair keyPair = generator.generateKeyPair();
+
+            Path directory = Files.createTempDirectory("jmh-keys");
+            writePem(directory.resolve("app.pub"), "PUBLIC KEY", keyPair.getPublic().getEncoded());
+            writePem(directory.resolve("app.key"), "PRIVATE KEY", keyPair.getPrivate().getEncoded());
+            return directory;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writePem(Path file, String type, byte[] content) throws IOException {
+        String body = Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(content);
+        String pem = "-----BEGIN " + type + "-----\n" + body + "\n-----END " + type + "-----\n";
+        Files.writeString(file, pem, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bookingrestaurant.benchmark;
+
+import com.example.bookingrestaurant.config.security.auth.JwtUserPrincipal;
+import com.example.bookingrestaurant.dto.BookingPostDTO;
+import com.example.bookingrestaurant.model.Booking;
+import com.example.bookingrestaurant.services.BookingService;
+import com.example.bookingrestaurant.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark da criação e do cancelamento de reservas pelo BookingService.
+ * Cada operação cria uma reserva e a cancela em seguida,
+ * liberando o horário para a próxima operação sobre a mesma mesa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    private static final int TABLES = 32;
+
+    private ConfigurableApplicationContext context;
+    private BookingService bookingService;
+    private JwtUserPrincipal principal;
+    private List<Long> tableIds;
+    private LocalDateTime bookingDate;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.createUsers(context);
+        tableIds = BenchmarkContext.createTables(context, TABLES);
+        bookingService = context.getBean(BookingService.class);
+
+        Long customerId = context.getBean(UserService.class).getUserByEmail(BenchmarkContext.CUSTOMER_EMAIL).getUser().getId();
+        principal = new JwtUserPrincipal(customerId, BenchmarkContext.CUSTOMER_EMAIL);
+        bookingDate = LocalDateTime.now().plusDays(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Booking createAndCancelBooking() throws Exception {
+        Long tableId = tableIds.get(next);
+        next = (next + 1) % TABLES;
+
+        Booking booking = bookingService.createBooking(new BookingPostDTO(tableId, bookingDate), principal);
+        return bookingService.softDeleteBooking(booking.getId(), principal);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bookingrestaurant.benchmark;
+
+import com.example.bookingrestaurant.config.security.auth.JwtUserPrincipal;
+import com.example.bookingrestaurant.dto.BookingPostDTO;
+import com.example.bookingrestaurant.dto.RestaurantTableDTO;
+import com.example.bookingrestaurant.model.Booking;
+import com.example.bookingrestaurant.model.RestaurantTable;
+import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.repositories.BookingRepository;
+import com.example.bookingrestaurant.repositories.RestaurantTableRepository;
+import com.example.bookingrestaurant.services.BookingService;
+import com.example.bookingrestaurant.services.TableAvailabilityService;
+import com.example.bookingrestaurant.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark das inserções em massa: criação de várias mesas em uma transação
+ * e importação de um lote de reservas pelo BookingService.createBookings.
+ * Compara o JDBC batch desligado (batch_size=1) com o valor configurado na aplicação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 50;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private RestaurantTableRepository tableRepository;
+    private BookingRepository bookingRepository;
+    private BookingService bookingService;
+    private TableAvailabilityService availabilityService;
+    private JwtUserPrincipal principal;
+    private List<BookingPostDTO> bookingImport;
+    private List<Booking> importedBookings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start("--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        BenchmarkContext.createUsers(context);
+        List<Long> tableIds = BenchmarkContext.createTables(context, ROWS);
+
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        tableRepository = context.getBean(RestaurantTableRepository.class);
+        bookingRepository = context.getBean(BookingRepository.class);
+        bookingService = context.getBean(BookingService.class);
+        availabilityService = context.getBean(TableAvailabilityService.class);
+
+        Long customerId = context.getBean(UserService.class).getUserByEmail(BenchmarkContext.CUSTOMER_EMAIL).getUser().getId();
+        principal = new JwtUserPrincipal(customerId, BenchmarkContext.CUSTOMER_EMAIL);
+
+        LocalDateTime bookingDate = LocalDateTime.now().plusDays(7);
+        bookingImport = tableIds.stream()
+                .map(tableId -> new BookingPostDTO(tableId, bookingDate))
+                .toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Remove as reservas importadas e libera os horários, para que a próxima importação use as mesmas mesas.
+     */
+    @TearDown(Level.Invocation)
+    public void removeImportedBookings() {
+        if(importedBookings == null){
+            return;
+        }
+        importedBookings.forEach(booking -> availabilityService.release(booking.getTable().getId(), booking.getBookingDate()));
+        bookingRepository.deleteAllInBatch(importedBookings);
+        importedBookings = null;
+    }
+
+    @Benchmark
+    public List<RestaurantTable> createTables() {
+        return transactionTemplate.execute(status -> {
+            List<RestaurantTable> tables = new ArrayList<>(ROWS);
+            for(int i = 0; i < ROWS; i++){
+                tables.add(new RestaurantTable(new RestaurantTableDTO("MESA-LOTE-" + i, 4, RestaurantTableStatus.AVAILABLE, null)));
+            }
+            return tableRepository.saveAll(tables);
+        });
+    }
+
+    @Benchmark
+    public List<Booking> importBookings() throws Exception {
+        importedBookings = bookingService.createBookings(bookingImport, principal);
+        return importedBookings;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bookingrestaurant.benchmark;
+
+import com.example.bookingrestaurant.config.security.auth.JwtUserPrincipal;
+import com.example.bookingrestaurant.dto.BookingPostDTO;
+import com.example.bookingrestaurant.dto.BookingResponseDTO;
+import com.example.bookingrestaurant.services.IdempotencyService;
+import com.example.bookingrestaurant.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark das novas tentativas de POST /reservas com a mesma Idempotency-Key.
+ * A reserva é criada uma vez no setup, e cada operação repete o pedido com a mesma chave,
+ * que deve ser respondido pelo mapa em memória sem validar nem acessar o banco.
+ * Pode ser comparado com o BookingServiceBenchmark, que cria a reserva a cada operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class IdempotencyBenchmark {
+
+    private static final String IDEMPOTENCY_KEY = "benchmark-retry";
+
+    private ConfigurableApplicationContext context;
+    private IdempotencyService idempotencyService;
+    private JwtUserPrincipal principal;
+    private BookingPostDTO request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.createUsers(context);
+        List<Long> tableIds = BenchmarkContext.createTables(context, 1);
+        idempotencyService = context.getBean(IdempotencyService.class);
+
+        Long customerId = context.getBean(UserService.class).getUserByEmail(BenchmarkContext.CUSTOMER_EMAIL).getUser().getId();
+        principal = new JwtUserPrincipal(customerId, BenchmarkContext.CUSTOMER_EMAIL);
+        request = new BookingPostDTO(tableIds.getFirst(), LocalDateTime.now().plusDays(7));
+
+        idempotencyService.createBooking(IDEMPOTENCY_KEY, request, principal);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BookingResponseDTO replayBooking() throws Exception {
+        return idempotencyService.createBooking(IDEMPOTENCY_KEY, request, principal);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bookingrestaurant.benchmark;
+
+import com.example.bookingrestaurant.config.security.auth.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark do JwtDecoder com e sem o cache de tokens validados.
+ * Simula vários clientes reenviando o mesmo token em várias requisições simultâneas:
+ * cada operação decodifica um dos tokens já emitidos, escolhido ao acaso.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    private static final int CLIENTS = 1000;
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private JwtDecoder jwtDecoder;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("--jwt.cache.enabled=" + cacheEnabled);
+
+        JwtService jwtService = context.getBean(JwtService.class);
+        jwtDecoder = context.getBean(JwtDecoder.class);
+
+        tokens = new String[CLIENTS];
+        for(int i = 0; i < CLIENTS; i++){
+            tokens[i] = jwtService.generateToken(UsernamePasswordAuthenticationToken.authenticated(
+                    "cliente" + i + "@benchmark.com", null, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER"))));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Jwt decodeToken() {
+        return jwtDecoder.decode(tokens[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+}
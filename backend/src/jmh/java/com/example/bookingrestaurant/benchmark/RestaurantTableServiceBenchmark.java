@@ -0,0 +1,83 @@
+package com.example.bookingrestaurant.benchmark;
+
+import com.example.bookingrestaurant.dto.RestaurantTableResponseDTO;
+import com.example.bookingrestaurant.model.RestaurantTable;
+import com.example.bookingrestaurant.services.RestaurantTableService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark das operações de leitura do RestaurantTableService:
+ * a validação de uma mesa em um horário, a listagem paginada das mesas
+ * e a escolha automática de mesas para um grupo que cabe em uma mesa e para um que precisa juntar mesas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestaurantTableServiceBenchmark {
+
+    private static final int TABLES = 200;
+    private static final int PAGE_SIZE = 50;
+    private static final int SMALL_PARTY = 6;
+    private static final int LARGE_PARTY = 45;
+
+    private ConfigurableApplicationContext context;
+    private RestaurantTableService tableService;
+    private RestaurantTable table;
+    private LocalDateTime bookingDate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start();
+        BenchmarkContext.createUsers(context);
+        List<Long> tableIds = BenchmarkContext.createTables(context, TABLES);
+
+        tableService = context.getBean(RestaurantTableService.class);
+        table = tableService.findTableById(tableIds.getFirst());
+        bookingDate = LocalDateTime.now().plusDays(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public RestaurantTable checkTableValidation() throws Exception {
+        tableService.checkTableValidation(table, bookingDate);
+        return table;
+    }
+
+    @Benchmark
+    public List<RestaurantTableResponseDTO> getAllTables() {
+        return tableService.getAllTables(BenchmarkContext.CUSTOMER_EMAIL, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<RestaurantTableResponseDTO> assignSmallParty() throws Exception {
+        return tableService.getTableAssignment(bookingDate, SMALL_PARTY);
+    }
+
+    @Benchmark
+    public List<RestaurantTableResponseDTO> assignLargeParty() throws Exception {
+        return tableService.getTableAssignment(bookingDate, LARGE_PARTY);
+    }
+}
@@ -0,0 +1,100 @@
+// Teste de carga (k6) do fluxo de reservas.
+// Roda o mesmo cenário contra a aplicação com threads de plataforma e com virtual threads,
+// e compara a vazão (http_reqs) e a latência de cauda (p95/p99) de cada execução.
+//
+//   VIRTUAL_THREADS=false mvn spring-boot:run   ->  k6 run src/load/booking-load.js
+//   VIRTUAL_THREADS=true  mvn spring-boot:run   ->  k6 run src/load/booking-load.js
+//
+// Variáveis: BASE_URL (padrão http://localhost:8080), RATE (requisições/s), DURATION, TABLES.
+import http from 'k6/http';
+import encoding from 'k6/encoding';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = parseInt(__ENV.RATE || '500');
+const DURATION = __ENV.DURATION || '2m';
+const TABLES = parseInt(__ENV.TABLES || '200');
+const PASSWORD = 'LoadTest@123';
+
+export const options = {
+    scenarios: {
+        reservas: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 5000,
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        http_req_failed: ['rate<0.05'],
+        'http_req_duration{name:criar_reserva}': ['p(99)<1000'],
+    },
+};
+
+function register(email, role) {
+    http.post(`${BASE_URL}/usuarios/registrar`, JSON.stringify({
+        name: 'Load Test',
+        email: email,
+        password: PASSWORD,
+        role: role,
+    }), { headers: { 'Content-Type': 'application/json' } });
+}
+
+function login(email) {
+    const basic = encoding.b64encode(`${email}:${PASSWORD}`);
+    const res = http.post(`${BASE_URL}/usuarios/login`, null, {
+        headers: { Authorization: `Basic ${basic}` },
+    });
+    return res.body;
+}
+
+export function setup() {
+    const suffix = Date.now();
+    const admin = `admin${suffix}@loadtest.com`;
+    const customer = `cliente${suffix}@loadtest.com`;
+
+    register(admin, 'ROLE_ADMINISTRATOR');
+    register(customer, 'ROLE_CUSTOMER');
+
+    const adminToken = login(admin);
+    const tableIds = [];
+    for (let i = 0; i < TABLES; i++) {
+        const res = http.post(`${BASE_URL}/mesas`, JSON.stringify({
+            name: `Mesa ${suffix}-${i}`,
+            capacity: 2 + (i % 10),
+            status: 'AVAILABLE',
+        }), { headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${adminToken}` } });
+        tableIds.push(res.json('id'));
+    }
+
+    return { token: login(customer), tableIds: tableIds };
+}
+
+function randomDate() {
+    const date = new Date(Date.now() + (1 + Math.floor(Math.random() * 28)) * 86400000);
+    date.setUTCHours(11 + Math.floor(Math.random() * 11), 0, 0, 0);
+    return date.toISOString().substring(0, 19);
+}
+
+export default function (data) {
+    const headers = { 'Content-Type': 'application/json', Authorization: `Bearer ${data.token}` };
+    const roll = Math.random();
+
+    if (roll < 0.5) {
+        const tableId = data.tableIds[Math.floor(Math.random() * data.tableIds.length)];
+        const res = http.post(`${BASE_URL}/reservas`, JSON.stringify({ tableId: tableId, date: randomDate() }),
+            { headers: headers, tags: { name: 'criar_reserva' } });
+        // Horário já ocupado (400) é uma resposta esperada do cenário.
+        check(res, { 'reserva criada ou recusada': (r) => r.status === 201 || r.status === 400 });
+    } else if (roll < 0.8) {
+        const res = http.get(`${BASE_URL}/mesas/disponiveis?data=${randomDate()}&pessoas=4`,
+            { headers: headers, tags: { name: 'mesas_disponiveis' } });
+        check(res, { 'mesas disponíveis': (r) => r.status === 200 });
+    } else {
+        const res = http.get(`${BASE_URL}/reservas?limite=50`, { headers: headers, tags: { name: 'listar_reservas' } });
+        check(res, { 'reservas listadas': (r) => r.status === 200 });
+    }
+}
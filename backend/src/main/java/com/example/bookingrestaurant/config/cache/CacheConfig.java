@@ -0,0 +1,17 @@
+package com.example.bookingrestaurant.config.cache;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuração responsável por habilitar os caches da aplicação.
+ * Os caches usam o Caffeine, com tamanho máximo e tempo de expiração
+ * definidos em spring.cache.caffeine.spec no application.properties.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /// Cache dos usuários autenticados, indexado pelo email
+    public static final String PRINCIPALS_CACHE = "principals";
+}
@@ -0,0 +1,25 @@
+package com.example.bookingrestaurant.config.datasource;
+
+/**
+ * Classe responsável por guardar, na thread atual, se a transação precisa ler do banco principal
+ * mesmo sendo somente leitura. Usada pela janela de read-your-writes do ReadYourWritesTracker.
+ */
+public final class DataSourceRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private DataSourceRoutingContext() {
+    }
+
+    public static void forcePrimary() {
+        PRIMARY_FORCED.set(Boolean.TRUE);
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+
+    public static void clear() {
+        PRIMARY_FORCED.remove();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bookingrestaurant.config.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource responsável por escolher entre o banco principal e a réplica de leitura.
+ * Transações somente leitura (@Transactional(readOnly = true)) vão para a réplica,
+ * todo o resto vai para o principal, inclusive as leituras dentro da janela de read-your-writes.
+ * Precisa ser envolvido por um LazyConnectionDataSourceProxy, para que a escolha aconteça
+ * no primeiro comando da transação, quando o readOnly já está definido.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route { PRIMARY, REPLICA }
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        return readOnly && !DataSourceRoutingContext.isPrimaryForced() ? Route.REPLICA : Route.PRIMARY;
+    }
+}
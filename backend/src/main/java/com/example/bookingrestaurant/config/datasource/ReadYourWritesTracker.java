@@ -0,0 +1,66 @@
+package com.example.bookingrestaurant.config.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Componente responsável pela janela de read-your-writes da réplica de leitura.
+ * Depois que um usuário cria ou cancela uma reserva, as leituras dele vão para o banco principal
+ * durante 'app.datasource.replica.read-your-writes-window', tempo suficiente para a réplica alcançar o principal.
+ * Sem réplica configurada a marcação não tem efeito, já que tudo vai para o mesmo banco.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${app.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Metodo responsável por registrar a escrita de um usuário.
+     * Dentro de uma transação a janela só começa depois do commit.
+     */
+    public void recordWrite(Long userId) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            recentWriters.put(userId, Boolean.TRUE);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * Metodo responsável por direcionar a transação atual para o banco principal
+     * caso o usuário tenha escrito dentro da janela.
+     * Precisa ser chamado antes do primeiro comando da transação.
+     */
+    public void routeToPrimaryIfRecent(Long userId) {
+        if(recentWriters.getIfPresent(userId) == null || !TransactionSynchronizationManager.isSynchronizationActive()){
+            return;
+        }
+
+        DataSourceRoutingContext.forcePrimary();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                DataSourceRoutingContext.clear();
+            }
+        });
+    }
+}
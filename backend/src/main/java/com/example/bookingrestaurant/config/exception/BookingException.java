@@ -3,7 +3,7 @@ package com.example.bookingrestaurant.config.exception;
 /**
  * Exception checada responsável por qualquer exceção relacionada às reservas.
  */
-public class BookingException extends Exception {
+public class BookingException extends DomainException {
     public BookingException(String message) {
         super(message);
     }
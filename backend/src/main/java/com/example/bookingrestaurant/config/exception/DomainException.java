@@ -0,0 +1,13 @@
+package com.example.bookingrestaurant.config.exception;
+
+/**
+ * Exception checada base para os erros de negócio esperados do sistema,
+ * como data de reserva inválida, mesa inativa ou email já cadastrado.
+ * Não preenche o stack trace na construção, já que esses erros são respostas
+ * normais da API e o trace não ajuda a entender o motivo, somente a mensagem.
+ */
+public abstract class DomainException extends Exception {
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.bookingrestaurant.config.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,12 +29,21 @@ import java.util.Set;
  * Classe responsável por tratar os erros recebidos da camada Controller.
  * Aceita as Exceções de RestaurantTableException, BookingException e Exceptions genéricas.
  * Além disso, documenta o log de cada Exception.
+ * Os erros esperados (de negócio e de validação) são registrados em uma linha de WARN
+ * e contados na métrica 'app.exceptions.expected', somente as exceções inesperadas
+ * registram o stack trace completo, a não ser que 'app.exceptions.log-stack-traces' esteja ligado.
  */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.exceptions.log-stack-traces:false}")
+    private boolean logStackTraces;
+
     /**
      * ExceptionHandler genérico responsável por qualquer exceção inesperada no sistema.
      * Caso a Exceção não possua nenhuma mensagem é associada uma mensagem padrão.
@@ -47,6 +62,48 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, httpStatus);
     }
 
+    /**
+     * ExceptionHandler responsável pelas requisições que não conseguiram uma conexão do pool
+     * dentro do 'connection-timeout' do HikariCP, geralmente por excesso de requisições simultâneas.
+     * Como a falha é rápida, o cliente é avisado para tentar novamente em vez de esperar na fila.
+     * A causa raiz vai no log, já que a mesma Exceção também aparece com o banco fora do ar.
+     * Retorna o corpo do erro, o header Retry-After e o status 503(Service Unavailable).
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<ErrorResponse> handleConnectionPoolExhausted(CannotCreateTransactionException e){
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+
+        Throwable rootCause = ExceptionUtils.getRootCause(e);
+        logExpectedException("Nenhuma conexão disponível com o banco, causa "
+                + rootCause.getClass().getName() + ": " + rootCause.getMessage(), e);
+
+        ErrorResponse errorResponse =
+                new ErrorResponse(status.value(), status.getReasonPhrase(), "Servidor ocupado, tente novamente.");
+
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    /**
+     * ExceptionHandler responsável pelas requisições recusadas pelo executor de hashing de senhas,
+     * quando existem registros ou logins demais ao mesmo tempo.
+     * Retorna o corpo do erro, o header Retry-After e o status 429(Too Many Requests).
+     */
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<ErrorResponse> handleHashingCapacityExceeded(HashingCapacityExceededException e){
+        HttpStatus status = HttpStatus.TOO_MANY_REQUESTS;
+
+        logExpectedException("Executor de hashing saturado", e);
+
+        ErrorResponse errorResponse =
+                new ErrorResponse(status.value(), status.getReasonPhrase(), e.getMessage());
+
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     /**
      * ExceptionHandler responsável pela exceções vindas do UserService,
      * esta sendo a exceção de email já existente no banco de dados.
@@ -56,8 +113,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleUserAlreadyExistsException(UserAlreadyExistsException e){
         HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
 
-        logger.error("Exceção de chave duplicada no banco: {}", e.getMessage());
-        logger.error("Trace da exceção: ", e);
+        logExpectedException("Exceção de chave duplicada no banco", e);
 
         String error = e.getMessage();
 
@@ -76,8 +132,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleBookingException(BookingException e){
         HttpStatus status = HttpStatus.BAD_REQUEST;
 
-        logger.error("Exceção relacionada as reservas: {}", e.getMessage());
-        logger.error("Trace da Exceção: ", e);
+        logExpectedException("Exceção relacionada as reservas", e);
 
         ErrorResponse errorResponse =
                 new ErrorResponse(status.value(), status.getReasonPhrase(), e.getMessage());
@@ -94,8 +149,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleUserNotFoundInDatabase(UsernameNotFoundException e){
         HttpStatus status = HttpStatus.UNAUTHORIZED;
 
-        logger.error("Exceção ao procurar usuário no banco: {}", e.getMessage());
-        logger.error("Trace da exceção: ", e);
+        logExpectedException("Exceção ao procurar usuário no banco", e);
 
         ErrorResponse errorResponse =
                 new ErrorResponse(status.value(), status.getReasonPhrase(), e.getLocalizedMessage());
@@ -113,8 +167,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleJsonParseError(HttpMessageNotReadableException e){
         HttpStatus status = HttpStatus.BAD_REQUEST;
 
-        logger.error("Exceção na conversão da Requisição: {}", e.getMessage());
-        logger.error("Trace da exceção: ", e);
+        logExpectedException("Exceção na conversão da Requisição", e);
 
         Throwable rootCause = ExceptionUtils.getRootCause(e);
 
@@ -135,8 +188,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleInvalidDTO(MethodArgumentNotValidException e){
         HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
 
-        logger.error("Exceção de validação da requisição: {}", e.getMessage());
-        logger.error("Trace da exceção: ", e);
+        logExpectedException("Exceção de validação da requisição", e);
 
         Map<String, String> errors = new HashMap<>();
         e.getBindingResult().getAllErrors().forEach(
@@ -162,8 +214,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleRestaurantTableException(RestaurantTableException e){
         HttpStatus status = HttpStatus.BAD_REQUEST;
 
-        logger.error("Exceção relacionada as mesas de restaurante: {}", e.getMessage());
-        logger.error("Trace da exceção: ", e);
+        logExpectedException("Exceção relacionada as mesas de restaurante", e);
 
         ErrorResponse errorResponse =
                 new ErrorResponse(status.value(), status.getReasonPhrase(), e.getMessage());
@@ -180,8 +231,7 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleValidationExceptions(ConstraintViolationException e){
         HttpStatus status = HttpStatus.UNPROCESSABLE_ENTITY;
 
-        logger.error("Exceção de validação: {}", e.getMessage());
-        logger.error("Trace da exceção: ", e);
+        logExpectedException("Exceção de validação", e);
 
         Set<ConstraintViolation<?>> errors = e.getConstraintViolations();
         List<String> errorsMessages = errors.stream()
@@ -194,4 +244,22 @@ public class GlobalExceptionHandler {
 
         return new ResponseEntity<>(errorResponse, status);
     }
+
+    /**
+     * Metodo responsável por registrar um erro esperado sem o custo do stack trace.
+     * Escreve uma única linha de WARN e incrementa o contador da exceção.
+     */
+    private void logExpectedException(String description, Exception e){
+        Counter.builder("app.exceptions.expected")
+                .description("Erros esperados tratados pela API")
+                .tag("exception", e.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+
+        if(logStackTraces){
+            logger.warn("{}: {}", description, e.getMessage(), e);
+        } else {
+            logger.warn("{}: {}", description, e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.bookingrestaurant.config.exception;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Exception responsável por avisar que o executor de hashing de senhas está saturado.
+ * É uma AuthenticationException para que o login pelo httpBasic também consiga tratá-la,
+ * e assim como as exceções de domínio não preenche o stack trace, já que é uma resposta esperada em picos.
+ */
+public class HashingCapacityExceededException extends AuthenticationServiceException {
+    public HashingCapacityExceededException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.bookingrestaurant.config.exception;
 
-public class UserAlreadyExistsException extends Exception {
+public class UserAlreadyExistsException extends DomainException {
     public UserAlreadyExistsException(String message) {
         super(message);
     }
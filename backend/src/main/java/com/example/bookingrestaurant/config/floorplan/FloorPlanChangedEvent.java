@@ -0,0 +1,8 @@
+package com.example.bookingrestaurant.config.floorplan;
+
+/**
+ * Evento publicado pelo RestaurantTableService quando uma mesa é criada, alterada ou apagada.
+ */
+public record FloorPlanChangedEvent(Long tableId) {
+
+}
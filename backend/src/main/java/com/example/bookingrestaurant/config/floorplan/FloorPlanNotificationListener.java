@@ -0,0 +1,141 @@
+package com.example.bookingrestaurant.config.floorplan;
+
+import com.example.bookingrestaurant.services.TableFloorPlanCache;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Componente responsável por manter a planta do restaurante igual entre as instâncias da aplicação,
+ * usando o LISTEN/NOTIFY do PostgreSQL.
+ * Cada alteração de mesa feita nesta instância envia um NOTIFY no canal 'restaurant_tables'
+ * com o id da instância e o id da mesa, depois do commit.
+ * Uma thread dedicada mantém uma conexão própria escutando o canal e recarrega as mesas
+ * alteradas pelas outras instâncias no TableFloorPlanCache.
+ * Quando a conexão cai, a planta inteira é reconstruída ao reconectar, já que notificações podem ter sido perdidas.
+ */
+@Component
+@ConditionalOnProperty(name = "app.floor-plan.listen-notify.enabled", havingValue = "true")
+public class FloorPlanNotificationListener implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(FloorPlanNotificationListener.class);
+
+    static final String CHANNEL = "restaurant_tables";
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    private TableFloorPlanCache floorPlanCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    /**
+     * Metodo responsável por avisar as outras instâncias sobre a alteração de uma mesa.
+     * Dentro de uma transação o aviso só é enviado depois do commit.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void publish(FloorPlanChangedEvent event) {
+        jdbcTemplate.query("select pg_notify(?, ?)", (ResultSetExtractor<Object>) result -> null,
+                CHANNEL, instanceId + ":" + event.tableId());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("floor-plan-listener")
+                .daemon(true)
+                .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while(running){
+            try(Connection connection = DriverManager.getConnection(url, username, password)){
+                try(Statement statement = connection.createStatement()){
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if(reconnecting){
+                    floorPlanCache.rebuild();
+                }
+                logger.info("Escutando as alterações da planta do restaurante no canal {}.", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while(running){
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if(notifications != null){
+                        for(PGNotification notification : notifications){
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if(!running){
+                    return;
+                }
+                logger.warn("Conexão do LISTEN da planta do restaurante perdida: {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void handle(String payload) {
+        int separator = payload.indexOf(':');
+        if(separator < 0 || payload.substring(0, separator).equals(instanceId)){
+            return;
+        }
+
+        try {
+            floorPlanCache.refresh(Long.valueOf(payload.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            logger.warn("Não foi possível recarregar a mesa da notificação {}: {}", payload, e.getMessage());
+        }
+    }
+}
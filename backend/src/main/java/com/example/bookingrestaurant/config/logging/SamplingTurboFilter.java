@@ -0,0 +1,54 @@
+package com.example.bookingrestaurant.config.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtro do Logback responsável por amostrar os logs de DEBUG de um logger.
+ * Somente um a cada SAMPLERATE eventos de DEBUG (ou abaixo) do logger configurado é escrito,
+ * os outros são descartados antes de qualquer formatação.
+ * É usado no logger org.hibernate.SQL, que escreve todas as queries executadas.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private String loggerName;
+    private long sampleRate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if(!isStarted() || level.isGreaterOrEqual(Level.INFO) || !logger.getName().startsWith(loggerName)){
+            return FilterReply.NEUTRAL;
+        }
+
+        // Eventos abaixo do nível do logger já são descartados e não entram na contagem
+        if(!level.isGreaterOrEqual(logger.getEffectiveLevel())){
+            return FilterReply.NEUTRAL;
+        }
+
+        return counter.getAndIncrement() % sampleRate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    @Override
+    public void start() {
+        if(loggerName == null || sampleRate < 1){
+            addError("SamplingTurboFilter precisa de um LoggerName e de um SampleRate maior que zero.");
+            return;
+        }
+        super.start();
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setSampleRate(long sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bookingrestaurant.config.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Componente responsável pelos contadores de negócio das reservas.
+ * Conta as reservas criadas, canceladas, concluídas e rejeitadas,
+ * sendo as rejeitadas separadas pelo motivo (a Exceção lançada).
+ */
+@Component
+public class BookingMetrics {
+
+    private final MeterRegistry registry;
+    private final Counter created;
+    private final Counter cancelled;
+    private final Counter completed;
+
+    public BookingMetrics(MeterRegistry registry){
+        this.registry = registry;
+        this.created = Counter.builder("bookings.created")
+                .description("Reservas criadas")
+                .register(registry);
+        this.cancelled = Counter.builder("bookings.cancelled")
+                .description("Reservas canceladas")
+                .register(registry);
+        this.completed = Counter.builder("bookings.completed")
+                .description("Reservas concluídas depois do horário")
+                .register(registry);
+    }
+
+    public void bookingCreated(){
+        created.increment();
+    }
+
+    public void bookingCancelled(){
+        cancelled.increment();
+    }
+
+    public void bookingsCompleted(int count){
+        completed.increment(count);
+    }
+
+    public void bookingRejected(Exception reason){
+        Counter.builder("bookings.rejected")
+                .description("Reservas rejeitadas pelo motivo")
+                .tag("reason", reason.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.bookingrestaurant.config.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuração responsável pelas métricas da aplicação.
+ * Habilita o @Timed nos Services, que mede cada metodo com as tags de classe e metodo.
+ * As métricas são expostas em /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /// Nome do timer compartilhado por todos os metodos dos Services
+    public static final String SERVICE_TIMER = "app.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry){
+        return new TimedAspect(registry);
+    }
+}
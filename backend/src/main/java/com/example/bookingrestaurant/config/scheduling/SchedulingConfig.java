@@ -0,0 +1,14 @@
+package com.example.bookingrestaurant.config.scheduling;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuração responsável por habilitar as tarefas agendadas da aplicação, como o ExpiredBookingSweeper.
+ * Cada tarefa é ligada ou desligada pela sua própria propriedade.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+}
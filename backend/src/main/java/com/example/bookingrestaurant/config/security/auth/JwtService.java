@@ -1,5 +1,6 @@
 package com.example.bookingrestaurant.config.security.auth;
 
+import com.example.bookingrestaurant.config.security.userdetails.UserAuthenticated;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,6 +26,9 @@ public class JwtService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
 
+    public static final String USER_ID_CLAIM = "uid";
+    private static final String SCOPE_CLAIM = "scope";
+
     private final JwtEncoder encoder;
 
     @Value("${jwt.issuer}")
@@ -38,7 +42,8 @@ public class JwtService {
      * Metodo responsável por toda a criação do JWT token.
      * Recebe uma Authentication com as credenciais do usuário.
      * Delimita o Issuer, a data de criação e expiração,
-     * o email do Usuário e os papéis dele no token.
+     * o email do Usuário, o id dele e os papéis dele no token.
+     * Com o id no token, as rotas de reservas não precisam buscar o usuário no banco.
      * Retorna uma string com os dados separados dentro do token.
      */
     public String generateToken(Authentication authentication){
@@ -46,16 +51,19 @@ public class JwtService {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(" "));
 
-        JwtClaimsSet claims = JwtClaimsSet.builder()
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
                 .issuer(ISSUER)
                 .issuedAt(creationDate())
                 .expiresAt(expirationDate())
                 .subject(authentication.getName())
-                .claim("scope", scopes)
-                .build();
+                .claim(SCOPE_CLAIM, scopes);
+
+        if(authentication.getPrincipal() instanceof UserAuthenticated userAuthenticated){
+            claims.claim(USER_ID_CLAIM, userAuthenticated.getUser().getId());
+        }
 
         logger.info("Token gerado para o usuário {}.", authentication.getName());
-        return encoder.encode(JwtEncoderParameters.from(claims)).getTokenValue();
+        return encoder.encode(JwtEncoderParameters.from(claims.build())).getTokenValue();
     }
 
     /**
@@ -0,0 +1,16 @@
+package com.example.bookingrestaurant.config.security.auth;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Record que representa o usuário autenticado a partir das claims do token JWT,
+ * sem precisar consultar o banco de dados.
+ * O id pode ser nulo em tokens emitidos antes da claim 'uid' existir.
+ */
+public record JwtUserPrincipal(Long id, String email) {
+
+    public static JwtUserPrincipal from(Jwt jwt) {
+        Number id = jwt.getClaim(JwtService.USER_ID_CLAIM);
+        return new JwtUserPrincipal(id == null ? null : id.longValue(), jwt.getSubject());
+    }
+}
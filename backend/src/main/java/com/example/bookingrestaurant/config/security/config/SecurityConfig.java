@@ -1,28 +1,44 @@
 package com.example.bookingrestaurant.config.security.config;
 
+import com.example.bookingrestaurant.config.exception.HashingCapacityExceededException;
+import com.example.bookingrestaurant.config.security.auth.CachingJwtDecoder;
+import com.example.bookingrestaurant.config.security.password.GovernedPasswordEncoder;
+import com.example.bookingrestaurant.config.security.ratelimit.RateLimitFilter;
+import com.example.bookingrestaurant.config.security.ratelimit.RateLimitRule;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.config.Customizer;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -37,6 +53,48 @@ public class SecurityConfig {
     @Value("${jwt.private.key}")
     private RSAPrivateKey priv;
 
+    @Value("${jwt.cache.enabled:true}")
+    private boolean jwtCacheEnabled;
+
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long jwtCacheMaximumSize;
+
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${security.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${security.hashing.queue-size:64}")
+    private int hashingQueueSize;
+
+    @Value("${security.hashing.verified-cache-ttl-seconds:60}")
+    private long verifiedCredentialsTtlSeconds;
+
+    @Value("${security.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${security.rate-limit.maximum-buckets:100000}")
+    private long rateLimitMaximumBuckets;
+
+    @Value("${security.rate-limit.auth.capacity:10}")
+    private int authRateLimitCapacity;
+
+    @Value("${security.rate-limit.auth.tokens-per-second:0.5}")
+    private double authRateLimitTokensPerSecond;
+
+    @Value("${security.rate-limit.tables.capacity:60}")
+    private int tableRateLimitCapacity;
+
+    @Value("${security.rate-limit.tables.tokens-per-second:20}")
+    private double tableRateLimitTokensPerSecond;
+
+    @Value("${security.rate-limit.bookings.capacity:30}")
+    private int bookingRateLimitCapacity;
+
+    @Value("${security.rate-limit.bookings.tokens-per-second:10}")
+    private double bookingRateLimitTokensPerSecond;
+
     private final String[] ENDPOINT_WITHOUT_AUTH = {
             "/usuarios/login",
             "/usuarios/registrar"
@@ -44,11 +102,18 @@ public class SecurityConfig {
 
     private final String[] TABLE_ENDPOINTS = {
             "/mesas",
+            "/mesas/disponiveis",
             "/mesas/:{id}"
     };
 
+    private final String HEALTH_ENDPOINT = "/actuator/health";
+
+    private final String METRICS_ENDPOINT = "/actuator/prometheus";
+
     private final String[] BOOKING_ENDPOINTS = {
             "/reservas",
+            "/reservas/lote",
+            "/reservas/auto",
             "/reservas/:{id}/cancelar"
     };
 
@@ -57,12 +122,13 @@ public class SecurityConfig {
      * antes das classes RestControllers.
      * Ele recebe um HttpSecurity, e a partir dele desativa o Cross-Site Request Forgery.
      * Configura os Métodos Http que podem ser usados, onde e por quem eles podem ser usados, e NEGAM
-     * qualquer outra requisição além dessas.
-     * Usa o httpBasic padrão e por fim,
+     * qualquer outra requisição além dessas. Somente o health do actuator é público, as métricas são apenas para administradores.
+     * Usa o httpBasic com um entry point que responde 429 quando o hashing está saturado,
+     * o RateLimitFilter logo depois da leitura do JWT, caso 'security.rate-limit.enabled' esteja ligado, e por fim,
      * Um conversor Jwt para remover o prefixo, podendo assim, ser usado nos RequestMatchers.
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, MeterRegistry registry) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(
                         auth ->
@@ -72,13 +138,19 @@ public class SecurityConfig {
                                         .requestMatchers(HttpMethod.PATCH, TABLE_ENDPOINTS).hasAnyRole(ADMIN_ROLE)
                                         .requestMatchers(HttpMethod.DELETE, TABLE_ENDPOINTS).hasRole(ADMIN_ROLE)
                                         .requestMatchers(BOOKING_ENDPOINTS).authenticated()
+                                        .requestMatchers(HttpMethod.GET, HEALTH_ENDPOINT).permitAll()
+                                        .requestMatchers(HttpMethod.GET, METRICS_ENDPOINT).hasRole(ADMIN_ROLE)
                                         .anyRequest().denyAll()
                 )
-                .httpBasic(Customizer.withDefaults())
+                .httpBasic(basic -> basic.authenticationEntryPoint(basicAuthenticationEntryPoint()))
                 .oauth2ResourceServer(
                         conf -> conf.jwt(jwt ->
                                 jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
                 );
+
+        if(rateLimitEnabled){
+            http.addFilterAfter(rateLimitFilter(registry), BearerTokenAuthenticationFilter.class);
+        }
         return http.build();
     }
 
@@ -97,21 +169,93 @@ public class SecurityConfig {
         return authenticationConverter;
     }
 
+    /**
+     * Bean responsável por validar e ler os tokens recebidos.
+     * Os tokens já validados ficam no CachingJwtDecoder até expirarem,
+     * caso 'jwt.cache.enabled' esteja ligado.
+     * Cada leitura é medida no histograma jwt.decode.
+     */
     @Bean
-    public JwtDecoder jwtDecoder(){
-        return NimbusJwtDecoder.withPublicKey(key).build();
+    public JwtDecoder jwtDecoder(MeterRegistry registry){
+        JwtDecoder nimbusDecoder = NimbusJwtDecoder.withPublicKey(key).build();
+        JwtDecoder decoder = jwtCacheEnabled
+                ? new CachingJwtDecoder(nimbusDecoder, jwtCacheMaximumSize, registry)
+                : nimbusDecoder;
+        Timer timer = Timer.builder("jwt.decode")
+                .description("Tempo de validação e leitura do token JWT")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        return token -> timer.record(() -> decoder.decode(token));
     }
 
+    /**
+     * Bean responsável por assinar os tokens gerados no JwtService.
+     * Cada assinatura é medida no histograma jwt.encode.
+     */
     @Bean
-    public JwtEncoder jwtEncoder(){
+    public JwtEncoder jwtEncoder(MeterRegistry registry){
         RSAKey jwk = new RSAKey.Builder(key).privateKey(priv).build();
         var jwks = new ImmutableJWKSet<>(new JWKSet(jwk));
-        return new NimbusJwtEncoder(jwks);
+        JwtEncoder encoder = new NimbusJwtEncoder(jwks);
+        Timer timer = Timer.builder("jwt.encode")
+                .description("Tempo de assinatura do token JWT")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        return parameters -> timer.record(() -> encoder.encode(parameters));
     }
 
-    /// Bean que define qual será a forma de criptografia usada para persistir a senha do usuário
-    @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
+    /**
+     * Bean que define qual será a forma de criptografia usada para persistir a senha do usuário.
+     * O BCrypt roda no executor limitado do GovernedPasswordEncoder, com o custo configurável.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public GovernedPasswordEncoder passwordEncoder(MeterRegistry registry){
+        return new GovernedPasswordEncoder(
+                new BCryptPasswordEncoder(bcryptStrength),
+                hashingThreads,
+                hashingQueueSize,
+                Duration.ofSeconds(verifiedCredentialsTtlSeconds),
+                registry);
+    }
+
+    /**
+     * Metodo responsável por montar o RateLimitFilter com um orçamento para cada grupo de rotas:
+     * login e registro (por IP), mesas e reservas (pelo subject do token).
+     * Não é um Bean, para não ser registrado também como filtro do servlet fora da cadeia de segurança.
+     */
+    private RateLimitFilter rateLimitFilter(MeterRegistry registry){
+        List<RateLimitRule> rules = List.of(
+                new RateLimitRule("auth", matcherOf(ENDPOINT_WITHOUT_AUTH), authRateLimitCapacity, authRateLimitTokensPerSecond),
+                new RateLimitRule("tables", matcherOf(TABLE_ENDPOINTS), tableRateLimitCapacity, tableRateLimitTokensPerSecond),
+                new RateLimitRule("bookings", matcherOf(BOOKING_ENDPOINTS), bookingRateLimitCapacity, bookingRateLimitTokensPerSecond));
+
+        return new RateLimitFilter(rules, rateLimitMaximumBuckets, registry);
+    }
+
+    private RequestMatcher matcherOf(String[] patterns){
+        return new OrRequestMatcher(Arrays.stream(patterns)
+                .map(pattern -> (RequestMatcher) AntPathRequestMatcher.antMatcher(pattern))
+                .toList());
+    }
+
+    /**
+     * Metodo responsável pelo entry point do httpBasic.
+     * Quando o executor de hashing está saturado responde 429(Too Many Requests) com Retry-After,
+     * nos outros casos mantém a resposta 401 padrão do httpBasic.
+     */
+    private AuthenticationEntryPoint basicAuthenticationEntryPoint(){
+        BasicAuthenticationEntryPoint basicEntryPoint = new BasicAuthenticationEntryPoint();
+        basicEntryPoint.setRealmName("Realm");
+
+        return (request, response, authException) -> {
+            if(authException instanceof HashingCapacityExceededException){
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), authException.getMessage());
+                return;
+            }
+            basicEntryPoint.commence(request, response, authException);
+        };
     }
 }
@@ -0,0 +1,159 @@
+package com.example.bookingrestaurant.config.security.password;
+
+import com.example.bookingrestaurant.config.exception.HashingCapacityExceededException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder responsável por limitar o custo de CPU do BCrypt.
+ * Todo encode e matches roda em um executor dedicado, com poucas threads e fila limitada,
+ * assim um pico de registros ou logins não ocupa todos os processadores das rotas de reservas.
+ * Quando a fila está cheia a requisição é recusada na hora com HashingCapacityExceededException.
+ * As verificações bem-sucedidas ficam em um cache curto, chaveado pelo HMAC-SHA256 do hash salvo
+ * junto com a senha enviada, para que logins repetidos na janela não refaçam o BCrypt.
+ * A chave do HMAC é aleatória, gerada na criação do encoder e nunca salva, então as chaves do cache
+ * não servem para testar senhas fora deste processo, como em um heap dump.
+ * Senhas erradas nunca são guardadas, então sempre passam pelo BCrypt.
+ */
+public class GovernedPasswordEncoder implements PasswordEncoder {
+
+    private static final String CACHE_KEY_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, Boolean> verifiedCredentials;
+    private final SecretKey cacheKeySecret;
+    private final Timer hashingTimer;
+    private final Counter rejected;
+    private final Counter cacheHits;
+
+    public GovernedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize,
+                                   Duration verifiedTtl, MeterRegistry registry) {
+        this.delegate = delegate;
+
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.verifiedCredentials = verifiedTtl.isZero() ? null : Caffeine.newBuilder()
+                .expireAfterWrite(verifiedTtl)
+                .maximumSize(10_000)
+                .build();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.cacheKeySecret = new SecretKeySpec(secret, CACHE_KEY_ALGORITHM);
+
+        this.hashingTimer = Timer.builder("password.hashing")
+                .description("Tempo de hashing e verificação de senhas, incluindo a espera na fila")
+                .register(registry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Hashings recusados por falta de capacidade")
+                .register(registry);
+        this.cacheHits = Counter.builder("password.hashing.cache.hits")
+                .description("Verificações de senha respondidas pelo cache")
+                .register(registry);
+        registry.gauge("password.hashing.queue", executor, pool -> pool.getQueue().size());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if(rawPassword == null || encodedPassword == null){
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        String key = verifiedCredentials == null ? null : cacheKey(rawPassword, encodedPassword);
+        if(key != null && verifiedCredentials.getIfPresent(key) != null){
+            cacheHits.increment();
+            return true;
+        }
+
+        boolean matches = submit(() -> delegate.matches(rawPassword, encodedPassword));
+        if(matches && key != null){
+            verifiedCredentials.put(key, Boolean.TRUE);
+        }
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Metodo responsável por parar as threads de hashing quando o contexto é fechado.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Timer.Sample sample = Timer.start();
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingCapacityExceededException("Muitas autenticações simultâneas, tente novamente.");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Hashing da senha interrompido", e);
+        } catch (ExecutionException e) {
+            throw new AuthenticationServiceException("Falha no hashing da senha", e.getCause());
+        } finally {
+            sample.stop(hashingTimer);
+        }
+    }
+
+    private String cacheKey(CharSequence rawPassword, String encodedPassword) {
+        try {
+            Mac mac = Mac.getInstance(CACHE_KEY_ALGORITHM);
+            mac.init(cacheKeySecret);
+            mac.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bookingrestaurant.config.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Filtro responsável por limitar a quantidade de requisições de cada cliente por grupo de rotas.
+ * Cada grupo (RateLimitRule) tem o seu orçamento, e cada cliente um TokenBucket por grupo,
+ * identificado pelo subject do token JWT ou, nas requisições sem token como o login, pelo IP.
+ * Fica depois da leitura do JWT e antes do httpBasic, então um login acima do limite
+ * é recusado antes de gastar um BCrypt.
+ * Os baldes ficam em um cache do Caffeine limitado em tamanho, e um balde parado pelo tempo de
+ * encher de novo é removido, já que nesse ponto ele é igual a um balde novo.
+ * As requisições acima do orçamento recebem 429(Too Many Requests) com o header Retry-After.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final List<RateLimitRule> rules;
+    private final Cache<BucketKey, TokenBucket> buckets;
+    private final Map<String, Counter> rejected;
+
+    public RateLimitFilter(List<RateLimitRule> rules, long maximumBuckets, MeterRegistry registry) {
+        this.rules = List.copyOf(rules);
+
+        Duration idleTimeout = rules.stream()
+                .map(RateLimitRule::refillTime)
+                .max(Duration::compareTo)
+                .orElse(Duration.ofMinutes(1));
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+
+        this.rejected = rules.stream().collect(Collectors.toMap(RateLimitRule::group, rule ->
+                Counter.builder("http.server.requests.rate_limited")
+                        .description("Requisições recusadas pelo limite de requisições")
+                        .tag("group", rule.group())
+                        .register(registry)));
+        registry.gauge("http.server.requests.rate_limit.buckets", buckets, Cache::estimatedSize);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RateLimitRule rule = this.findRule(request);
+        if(rule == null){
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        BucketKey key = new BucketKey(rule.group(), this.resolveClient(request));
+        TokenBucket bucket = buckets.get(key, ignored -> new TokenBucket());
+        long waitNanos = bucket.tryConsume(System.nanoTime(), rule.emissionIntervalNanos(), rule.capacity());
+
+        if(waitNanos > 0){
+            rejected.get(rule.group()).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Muitas requisições, tente novamente mais tarde.");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitRule findRule(HttpServletRequest request) {
+        for(RateLimitRule rule : rules){
+            if(rule.matcher().matches(request)){
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Metodo privado responsável por identificar o cliente da requisição:
+     * o subject do token quando já autenticado pelo JWT, ou o IP nos outros casos.
+     */
+    private String resolveClient(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if(authentication instanceof JwtAuthenticationToken jwtAuthentication){
+            return "sub:" + jwtAuthentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private record BucketKey(String group, String client) {
+
+    }
+}
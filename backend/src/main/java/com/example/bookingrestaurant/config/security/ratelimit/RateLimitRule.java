@@ -0,0 +1,23 @@
+package com.example.bookingrestaurant.config.security.ratelimit;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Record responsável pelo orçamento de um grupo de rotas no RateLimitFilter.
+ * CAPACITY é a rajada máxima de requisições seguidas e TOKENSPERSECOND a velocidade de reposição.
+ */
+public record RateLimitRule(String group, RequestMatcher matcher, int capacity, double tokensPerSecond) {
+
+    /// Intervalo entre dois tokens, em nanossegundos
+    long emissionIntervalNanos() {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond);
+    }
+
+    /// Tempo para um balde vazio voltar a ficar cheio, depois disso ele é igual a um balde novo
+    Duration refillTime() {
+        return Duration.ofNanos(emissionIntervalNanos() * capacity);
+    }
+}
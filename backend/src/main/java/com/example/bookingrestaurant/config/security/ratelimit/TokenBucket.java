@@ -0,0 +1,34 @@
+package com.example.bookingrestaurant.config.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe responsável por um balde de tokens sem locks, no formato do GCRA.
+ * Em vez de contar os tokens, guarda um único instante teórico (em nanossegundos) em que o balde
+ * estaria cheio de novo, e cada requisição avança esse instante em um intervalo de emissão com CAS.
+ * A requisição passa enquanto o instante não estiver mais que CAPACITY intervalos à frente de agora.
+ */
+final class TokenBucket {
+
+    private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Metodo responsável por consumir um token do balde.
+     * Retorna 0 caso a requisição possa passar, ou quantos nanossegundos faltam para o próximo token.
+     */
+    long tryConsume(long now, long emissionInterval, int capacity) {
+        long tolerance = emissionInterval * capacity;
+        while(true){
+            long current = fullAt.get();
+            long next = Math.max(current, now) + emissionInterval;
+            long allowedAt = next - tolerance;
+
+            if(allowedAt > now){
+                return allowedAt - now;
+            }
+            if(fullAt.compareAndSet(current, next)){
+                return 0;
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.bookingrestaurant.config.security.userdetails;
 
+import com.example.bookingrestaurant.config.cache.CacheConfig;
 import com.example.bookingrestaurant.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Service;
  * Service responsável por implementar do usuário no banco e
  * retornar um Usuário Autenticado caso ele exista.
  * Formas de acesso aos dados: UserRepository.
+ * Os usuários encontrados ficam no cache de principals, evitando uma consulta ao banco por requisição.
  */
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -19,6 +22,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     private UserRepository repository;
 
     @Override
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS_CACHE, key = "#email")
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return repository.findByEmail(email)
                 .map(UserAuthenticated::new)
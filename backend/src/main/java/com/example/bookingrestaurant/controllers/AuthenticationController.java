@@ -3,6 +3,7 @@ package com.example.bookingrestaurant.controllers;
 import com.example.bookingrestaurant.config.exception.UserAlreadyExistsException;
 import com.example.bookingrestaurant.config.security.auth.AuthenticationService;
 import com.example.bookingrestaurant.dto.UserPostDTO;
+import com.example.bookingrestaurant.dto.UserResponseDTO;
 import com.example.bookingrestaurant.model.User;
 import com.example.bookingrestaurant.services.UserService;
 import jakarta.validation.Valid;
@@ -52,11 +53,11 @@ public class AuthenticationController {
     /**
      * Mapping responsável pela requisição do tipo POST na rota de /usuarios/registrar.
      * É responsável pelo recebimento das informações do usuário e envio para a camada de UserService
-     * retorna o usuário se ele for registrado no banco
+     * retorna os dados públicos do usuário (sem a senha) se ele for registrado no banco
      * */
     @PostMapping("registrar")
-    public ResponseEntity<User> createUser(@RequestBody @Valid UserPostDTO userData) throws UserAlreadyExistsException {
+    public ResponseEntity<UserResponseDTO> createUser(@RequestBody @Valid UserPostDTO userData) throws UserAlreadyExistsException {
         User user = userService.createUser(userData);
-        return new ResponseEntity<>(user, HttpStatus.CREATED);
+        return new ResponseEntity<>(UserResponseDTO.from(user), HttpStatus.CREATED);
     }
 }
@@ -1,10 +1,20 @@
 package com.example.bookingrestaurant.controllers;
 
+import com.example.bookingrestaurant.config.security.auth.JwtUserPrincipal;
+import com.example.bookingrestaurant.dto.BookingAutoDTO;
 import com.example.bookingrestaurant.dto.BookingPostDTO;
+import com.example.bookingrestaurant.dto.BookingResponseDTO;
 import com.example.bookingrestaurant.model.Booking;
 import com.example.bookingrestaurant.services.BookingService;
+import com.example.bookingrestaurant.services.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.hibernate.validator.constraints.Range;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -14,9 +24,14 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -30,29 +45,111 @@ import java.util.List;
 @Validated
 public class BookingController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_BATCH_SIZE = 50;
+
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Mapping responsável pela requisição do tipo POST na rota de /reservas.
      * Recebe os dados da nova reserva e do token JWT, envia ele para a camada de BookingService.
+     * Com o header Idempotency-Key, novas tentativas com a mesma chave recebem a mesma reserva,
+     * sem criar outra, pelo IdempotencyService.
      * Retorna a nova reserva caso ela seja registrada no banco e o Status Http de CREATED.
      */
     @PostMapping
-    public ResponseEntity<Booking> createBooking(@RequestBody BookingPostDTO data, @AuthenticationPrincipal Jwt jwt) throws Exception {
-        Booking booking = bookingService.createBooking(data, jwt.getSubject());
-        return new ResponseEntity<>(booking, HttpStatus.CREATED);
+    public ResponseEntity<BookingResponseDTO> createBooking(
+            @RequestBody BookingPostDTO data,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+            @Size(min = 1, max = 100, message = "A Idempotency-Key tem que ter entre 1 e 100 caracteres") String idempotencyKey,
+            @AuthenticationPrincipal Jwt jwt) throws Exception {
+        JwtUserPrincipal principal = JwtUserPrincipal.from(jwt);
+        if(idempotencyKey != null){
+            return new ResponseEntity<>(idempotencyService.createBooking(idempotencyKey, data, principal), HttpStatus.CREATED);
+        }
+
+        Booking booking = bookingService.createBooking(data, principal);
+        return new ResponseEntity<>(BookingResponseDTO.from(booking), HttpStatus.CREATED);
+    }
+
+    /**
+     * Mapping responsável pela requisição do tipo POST na rota de /reservas/lote.
+     * Recebe uma lista de reservas (mesa e horário) e do token JWT, envia para a camada de BookingService.
+     * As reservas são criadas todas juntas ou nenhuma é criada.
+     * Retorna as novas reservas e o Status Http de CREATED.
+     */
+    @PostMapping(path = "lote")
+    public ResponseEntity<List<BookingResponseDTO>> createBookings(
+            @RequestBody
+            @NotEmpty(message = "Informe pelo menos uma reserva")
+            @Size(max = MAX_BATCH_SIZE, message = "O lote pode ter no máximo 50 reservas") List<BookingPostDTO> data,
+            @AuthenticationPrincipal Jwt jwt) throws Exception {
+        List<Booking> bookings = bookingService.createBookings(data, JwtUserPrincipal.from(jwt));
+        return new ResponseEntity<>(bookings.stream().map(BookingResponseDTO::from).toList(), HttpStatus.CREATED);
+    }
+
+    /**
+     * Mapping responsável pela requisição do tipo POST na rota de /reservas/auto.
+     * Recebe o horário e a quantidade de pessoas do grupo e do token JWT, envia para a camada de BookingService,
+     * que escolhe a mesa (ou as mesas juntas) sem o cliente precisar listar as mesas.
+     * Retorna uma reserva para cada mesa do grupo e o Status Http de CREATED.
+     */
+    @PostMapping(path = "auto")
+    public ResponseEntity<List<BookingResponseDTO>> createAutoBooking(@Valid @RequestBody BookingAutoDTO data, @AuthenticationPrincipal Jwt jwt) throws Exception {
+        List<Booking> bookings = bookingService.createAutoBooking(data, JwtUserPrincipal.from(jwt));
+        return new ResponseEntity<>(bookings.stream().map(BookingResponseDTO::from).toList(), HttpStatus.CREATED);
     }
 
     /**
      * Mapping responsável pela requisição do tipo GET na rota de /reservas.
-     * Recebe os dados do token do usuário e envia para camada de BookingService.
-     * Retorna suas reservas caso ele tenha e o status Http.
+     * Recebe os dados do token do usuário, o cursor e o limite da página e envia para camada de BookingService.
+     * Retorna uma página de suas reservas e o status Http,
+     * caso existam mais reservas o header X-Next-Cursor indica o cursor da próxima página.
      */
     @GetMapping
-    public ResponseEntity<List<Booking>> getBookingFromUser(@AuthenticationPrincipal Jwt jwt) throws Exception {
-        List<Booking> bookings = bookingService.getBookingFromUser(jwt.getSubject());
-        return new ResponseEntity<>(bookings, HttpStatus.OK);
+    public ResponseEntity<List<BookingResponseDTO>> getBookingFromUser(
+            @RequestParam(name = "cursor", required = false) Long cursor,
+            @RequestParam(name = "limite", defaultValue = "50")
+            @Range(min = 1, max = 200, message = "O limite da página tem que ser entre 1 e 200") int limit,
+            @AuthenticationPrincipal Jwt jwt) throws Exception {
+        List<BookingResponseDTO> bookings = bookingService.getBookingFromUser(JwtUserPrincipal.from(jwt), cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if(bookings.size() == limit){
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(bookings.getLast().id()));
+        }
+        return response.body(bookings);
+    }
+
+    /**
+     * Mapping responsável pela requisição do tipo GET na rota de /reservas com Accept application/x-ndjson.
+     * Escreve todas as reservas do usuário, uma por linha, conforme são lidas do banco,
+     * mantendo o uso de memória constante independente da quantidade de reservas.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBookingsFromUser(@AuthenticationPrincipal Jwt jwt) {
+        JwtUserPrincipal principal = JwtUserPrincipal.from(jwt);
+        StreamingResponseBody body = out ->
+                bookingService.streamBookingsFromUser(principal, booking -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(booking));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
@@ -62,8 +159,8 @@ public class BookingController {
      * retorna a reserva cancelada e o status Http
      */
     @PatchMapping(path = ":{id}/cancelar")
-    public ResponseEntity<Booking> softDeleteBooking(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) throws Exception{
-        Booking modifiedBooking = bookingService.softDeleteBooking(id, jwt.getSubject());
-        return new ResponseEntity<>(modifiedBooking, HttpStatus.OK);
+    public ResponseEntity<BookingResponseDTO> softDeleteBooking(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) throws Exception{
+        Booking modifiedBooking = bookingService.softDeleteBooking(id, JwtUserPrincipal.from(jwt));
+        return new ResponseEntity<>(BookingResponseDTO.from(modifiedBooking), HttpStatus.OK);
     }
 }
@@ -3,11 +3,17 @@ package com.example.bookingrestaurant.controllers;
 import com.example.bookingrestaurant.config.exception.InvalidRestaurantTableException;
 import com.example.bookingrestaurant.config.exception.RestaurantTableNotFoundException;
 import com.example.bookingrestaurant.dto.RestaurantTableDTO;
+import com.example.bookingrestaurant.dto.RestaurantTableResponseDTO;
 import com.example.bookingrestaurant.model.RestaurantTable;
 import com.example.bookingrestaurant.services.RestaurantTableService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.hibernate.validator.constraints.Range;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -19,8 +25,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -34,17 +45,70 @@ import java.util.List;
 @Validated
 public class RestaurantTableController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private RestaurantTableService tableService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Mapping responsável pela requisição do tipo GET na rota /mesas.
-     * Não recebe nenhum parâmetro e retorna todas as mesas do restaurante,
+     * Recebe o cursor e o limite da página e retorna uma página das mesas do restaurante,
      * independente do seu status.
+     * Caso existam mais mesas o header X-Next-Cursor indica o cursor da próxima página.
      */
     @GetMapping
-    public ResponseEntity<List<RestaurantTable>> getAllTables(@AuthenticationPrincipal Jwt jwt){
-        List<RestaurantTable> tables = tableService.getAllTables(jwt.getSubject());
+    public ResponseEntity<List<RestaurantTableResponseDTO>> getAllTables(
+            @RequestParam(name = "cursor", required = false) Long cursor,
+            @RequestParam(name = "limite", defaultValue = "50")
+            @Range(min = 1, max = 200, message = "O limite da página tem que ser entre 1 e 200") int limit,
+            @AuthenticationPrincipal Jwt jwt){
+        List<RestaurantTableResponseDTO> tables = tableService.getAllTables(jwt.getSubject(), cursor, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK);
+        if(tables.size() == limit){
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(tables.getLast().id()));
+        }
+        return response.body(tables);
+    }
+
+    /**
+     * Mapping responsável pela requisição do tipo GET na rota /mesas com Accept application/x-ndjson.
+     * Escreve todas as mesas, uma por linha, direto do snapshot da planta do restaurante em memória,
+     * sem acessar o banco e sem montar a lista inteira da resposta.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTables(@AuthenticationPrincipal Jwt jwt) {
+        String subject = jwt.getSubject();
+        StreamingResponseBody body = out ->
+                tableService.streamAllTables(subject, table -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(table));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Mapping responsável pela requisição do tipo GET na rota /mesas/disponiveis.
+     * Recebe a data da reserva e a quantidade de pessoas como parâmetros.
+     * Retorna as mesas livres nesse horário que comportam as pessoas,
+     * da menor para a maior capacidade.
+     */
+    @GetMapping(path = "disponiveis")
+    public ResponseEntity<List<RestaurantTableResponseDTO>> getAvailableTables(
+            @RequestParam("data") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date,
+            @RequestParam("pessoas") @Min(value = 1, message = "Informe pelo menos uma pessoa") int people,
+            @AuthenticationPrincipal Jwt jwt){
+        List<RestaurantTableResponseDTO> tables = tableService.getAvailableTables(date, people, jwt.getSubject());
         return new ResponseEntity<>(tables, HttpStatus.OK);
     }
 
@@ -54,9 +118,9 @@ public class RestaurantTableController {
      * Retorna a nova mesa caso tenha sido criada e o status Http OK
      */
     @PostMapping
-    public ResponseEntity<RestaurantTable> createTable(@Valid @RequestBody RestaurantTableDTO data, @AuthenticationPrincipal Jwt jwt){
+    public ResponseEntity<RestaurantTableResponseDTO> createTable(@Valid @RequestBody RestaurantTableDTO data, @AuthenticationPrincipal Jwt jwt){
         RestaurantTable newTable = tableService.createRestaurantTable(data, jwt.getSubject());
-        return new ResponseEntity<>(newTable, HttpStatus.CREATED);
+        return new ResponseEntity<>(RestaurantTableResponseDTO.from(newTable), HttpStatus.CREATED);
     }
 
     /**
@@ -65,9 +129,9 @@ public class RestaurantTableController {
      * Retorna a mesa modificada e o status Http OK
      */
     @PatchMapping(path = ":{id}")
-    public ResponseEntity<RestaurantTable> updateTable(@PathVariable Long id, @Valid @RequestBody RestaurantTableDTO updates, @AuthenticationPrincipal Jwt jwt) throws Exception {
+    public ResponseEntity<RestaurantTableResponseDTO> updateTable(@PathVariable Long id, @Valid @RequestBody RestaurantTableDTO updates, @AuthenticationPrincipal Jwt jwt) throws Exception {
         RestaurantTable modifiedTable = tableService.updateTable(id, updates, jwt.getSubject());
-        return new ResponseEntity<>(modifiedTable, HttpStatus.OK);
+        return new ResponseEntity<>(RestaurantTableResponseDTO.from(modifiedTable), HttpStatus.OK);
     }
 
     /**
@@ -76,9 +140,9 @@ public class RestaurantTableController {
      * Retorna a mesa que foi excluida, ou seja, null e o status Http de NO CONTENT
      */
     @DeleteMapping(path = ":{id}")
-    public ResponseEntity<RestaurantTable> deleteTable(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) throws RestaurantTableNotFoundException, InvalidRestaurantTableException {
+    public ResponseEntity<RestaurantTableResponseDTO> deleteTable(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) throws RestaurantTableNotFoundException, InvalidRestaurantTableException {
         RestaurantTable table = tableService.findTableById(id);
         tableService.deleteTable(table, jwt.getSubject());
-        return new ResponseEntity<>(table, HttpStatus.NO_CONTENT);
+        return new ResponseEntity<>(RestaurantTableResponseDTO.from(table), HttpStatus.NO_CONTENT);
     }
 }
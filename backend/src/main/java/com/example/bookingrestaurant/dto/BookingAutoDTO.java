@@ -0,0 +1,14 @@
+package com.example.bookingrestaurant.dto;
+
+import jakarta.validation.constraints.NotNull;
+import org.hibernate.validator.constraints.Range;
+
+import java.time.LocalDateTime;
+
+public record BookingAutoDTO(
+        @NotNull(message = "Informe a data da reserva")
+        LocalDateTime date,
+
+        @Range(min = 1, max = 80, message = "O grupo tem que ter entre 1 e 80 pessoas")
+        int partySize
+) { }
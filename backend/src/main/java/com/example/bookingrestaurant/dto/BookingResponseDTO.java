@@ -0,0 +1,27 @@
+package com.example.bookingrestaurant.dto;
+
+import com.example.bookingrestaurant.model.Booking;
+import com.example.bookingrestaurant.model.BookingStatus;
+import com.example.bookingrestaurant.model.RestaurantTable;
+
+import java.time.LocalDateTime;
+
+public record BookingResponseDTO(
+        Long id,
+        Long tableId,
+        String tableName,
+        LocalDateTime bookingDate,
+        BookingStatus bookingStatus
+) {
+
+    public static BookingResponseDTO from(Booking booking) {
+        RestaurantTable table = booking.getTable();
+        return new BookingResponseDTO(
+                booking.getId(),
+                table == null ? null : table.getId(),
+                table == null ? null : table.getName(),
+                booking.getBookingDate(),
+                booking.getBookingStatus()
+        );
+    }
+}
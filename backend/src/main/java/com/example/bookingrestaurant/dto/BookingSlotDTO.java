@@ -0,0 +1,7 @@
+package com.example.bookingrestaurant.dto;
+
+import java.time.LocalDateTime;
+
+public record BookingSlotDTO(Long tableId, LocalDateTime bookingDate) {
+
+}
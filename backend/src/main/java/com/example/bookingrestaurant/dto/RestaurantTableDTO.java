@@ -13,5 +13,8 @@ public record RestaurantTableDTO(
         @Range(min = 2, max = 20, message = "A capacidade da mesa tem que ser entre 2 e 20")
         int capacity,
 
-        RestaurantTableStatus status
+        RestaurantTableStatus status,
+
+        @Size(max = 50, message = "A área da mesa pode ter no máximo 50 caracteres")
+        String area
 ) { }
@@ -0,0 +1,11 @@
+package com.example.bookingrestaurant.dto;
+
+import com.example.bookingrestaurant.model.RestaurantTable;
+import com.example.bookingrestaurant.model.RestaurantTableStatus;
+
+public record RestaurantTableResponseDTO(Long id, String name, int capacity, RestaurantTableStatus status, String area) {
+
+    public static RestaurantTableResponseDTO from(RestaurantTable table) {
+        return new RestaurantTableResponseDTO(table.getId(), table.getName(), table.getCapacity(), table.getStatus(), table.getArea());
+    }
+}
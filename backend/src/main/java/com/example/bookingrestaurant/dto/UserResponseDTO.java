@@ -0,0 +1,11 @@
+package com.example.bookingrestaurant.dto;
+
+import com.example.bookingrestaurant.model.RoleName;
+import com.example.bookingrestaurant.model.User;
+
+public record UserResponseDTO(Long id, String name, String email, RoleName role) {
+
+    public static UserResponseDTO from(User user) {
+        return new UserResponseDTO(user.getId(), user.getName(), user.getEmail(), user.getRole());
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.bookingrestaurant.model;
 
-import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -11,6 +10,9 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
@@ -21,24 +23,31 @@ import java.time.LocalDateTime;
  * Entidade responsável por representar a Reserva.
  * Possui atributos de ID como PRIMARY KEY,
  * BOOKINGDATE que representa o horário da reserva,
- * BOOKINGSTATUS que representa se a reserva está ACTIVE ou CANCELED
+ * BOOKINGSTATUS que representa se a reserva está ACTIVE, CANCELED ou COMPLETED
  * e, por fim,
  * USER e TABLE com relacionamento de N - 1,
  * indicando que uma mesa ou usuário podem ter mais de uma reserva.
+ * Os relacionamentos são LAZY e sem cascata, salvar uma reserva escreve somente a sua linha.
+ * A busca de uma reserva carrega a mesa junto pelo EntityGraph nomeado de detalhe.
  */
 @Entity
 @Table(name = "bookings")
+@NamedEntityGraph(name = Booking.DETAIL_GRAPH, attributeNodes = @NamedAttributeNode("table"))
 public class Booking {
 
+    /// Visão de detalhe: a reserva junto com a sua mesa
+    public static final String DETAIL_GRAPH = "Booking.detail";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 
-    @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "restaurant_table_id", referencedColumnName = "id")
     private RestaurantTable table;
 
@@ -1,6 +1,6 @@
 package com.example.bookingrestaurant.model;
 
-/// Representa o status da Reserva, podendo ser ACTIVE(ativa) ou CANCELED(cancelada)
+/// Representa o status da Reserva, podendo ser ACTIVE(ativa), CANCELED(cancelada) ou COMPLETED(concluída)
 public enum BookingStatus {
-    ACTIVE, CANCELED
+    ACTIVE, CANCELED, COMPLETED
 }
@@ -0,0 +1,103 @@
+package com.example.bookingrestaurant.model;
+
+import com.example.bookingrestaurant.dto.BookingResponseDTO;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidade responsável por guardar a resposta de uma reserva criada com o header Idempotency-Key.
+ * Possui como PRIMARY KEY o email do usuário junto com a chave enviada,
+ * e os campos da resposta original (reserva, mesa, horário e status),
+ * assim uma nova tentativa com a mesma chave recebe a mesma resposta sem criar outra reserva.
+ * É sempre inserida na mesma transação da reserva, e CREATEDAT permite apagar as chaves antigas.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@IdClass(IdempotencyKeyId.class)
+public class IdempotencyKey implements Persistable<IdempotencyKeyId> {
+
+    @Id
+    @Column(length = 100)
+    private String userEmail;
+
+    @Id
+    @Column(length = 100)
+    private String idempotencyKey;
+
+    @Column(nullable = false)
+    private Long bookingId;
+
+    @Column
+    private Long tableId;
+
+    @Column(length = 50)
+    private String tableName;
+
+    @Column
+    @Temporal(TemporalType.TIMESTAMP)
+    private LocalDateTime bookingDate;
+
+    @Column(length = 60)
+    @Enumerated(EnumType.STRING)
+    private BookingStatus bookingStatus;
+
+    @Column(nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private LocalDateTime createdAt;
+
+    /// Chaves novas são inseridas direto, sem o SELECT que o merge faria antes
+    @Transient
+    private boolean newKey = true;
+
+    public IdempotencyKey(){
+
+    }
+
+    public IdempotencyKey(IdempotencyKeyId id, BookingResponseDTO response){
+        this.userEmail = id.userEmail();
+        this.idempotencyKey = id.idempotencyKey();
+        this.bookingId = response.id();
+        this.tableId = response.tableId();
+        this.tableName = response.tableName();
+        this.bookingDate = response.bookingDate();
+        this.bookingStatus = response.bookingStatus();
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public IdempotencyKeyId getId() {
+        return new IdempotencyKeyId(userEmail, idempotencyKey);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newKey;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newKey = false;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public BookingResponseDTO toResponse() {
+        return new BookingResponseDTO(bookingId, tableId, tableName, bookingDate, bookingStatus);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bookingrestaurant.model;
+
+import java.io.Serializable;
+
+/// Chave composta de IdempotencyKey: o email do usuário e o valor do header Idempotency-Key
+public record IdempotencyKeyId(String userEmail, String idempotencyKey) implements Serializable {
+
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -20,14 +21,16 @@ import java.util.Objects;
  * Possui atributo de ID como a PRIMARY KEY,
  * NAME que representa o código da mesa,
  * CAPACITY que representa a quantidade de pessoas que a mesa consegue suportar
- * e RESTAURANTTABLESTATUS que pode assumir os valores de AVAILABLE, BOOKED E INACTIVE
+ * RESTAURANTTABLESTATUS que pode assumir os valores de AVAILABLE, BOOKED E INACTIVE
+ * e AREA, opcional, que indica o salão da mesa: somente mesas da mesma área podem ser juntadas.
  */
 @Entity
 @Table(name = "restaurant_tables")
 public class RestaurantTable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurant_tables_seq")
+    @SequenceGenerator(name = "restaurant_tables_seq", sequenceName = "restaurant_tables_seq", allocationSize = 50)
     private Long id;
 
     @Column(length = 50, nullable = false)
@@ -43,6 +46,10 @@ public class RestaurantTable {
     @Enumerated(EnumType.STRING)
     private RestaurantTableStatus restaurantTableStatus;
 
+    @Column(length = 50)
+    @Size(max = 50, message = "A área da mesa pode ter no máximo 50 caracteres")
+    private String area;
+
     public RestaurantTable(){
 
     }
@@ -51,6 +58,7 @@ public class RestaurantTable {
         this.name = data.name();
         this.capacity = data.capacity();
         this.restaurantTableStatus = RestaurantTableStatus.AVAILABLE;
+        this.area = data.area();
     }
 
     public Long getId() {
@@ -85,6 +93,14 @@ public class RestaurantTable {
         this.restaurantTableStatus = restaurantTableStatus;
     }
 
+    public String getArea() {
+        return area;
+    }
+
+    public void setArea(String area) {
+        this.area = area;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
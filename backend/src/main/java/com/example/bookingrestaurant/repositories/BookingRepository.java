@@ -1,19 +1,117 @@
 package com.example.bookingrestaurant.repositories;
 
+import com.example.bookingrestaurant.dto.BookingResponseDTO;
+import com.example.bookingrestaurant.dto.BookingSlotDTO;
 import com.example.bookingrestaurant.model.Booking;
-import com.example.bookingrestaurant.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository responsável por interagir com os dados da tabela de 'bookings',
- * É possível receber uma reserva a partir do seu id, ou por um Usuário.
+ * É possível receber uma reserva a partir do seu id entre as reservas de um Usuário,
+ * e cancelar uma reserva ativa com um UPDATE condicional.
+ * As reservas de um Usuário podem ser paginadas por cursor (id) ou lidas como stream,
+ * já projetadas em BookingResponseDTO com somente as colunas enviadas na resposta.
+ * Também fornece os horários das reservas ativas para montar o índice de disponibilidade
+ * e verifica conflitos de horário diretamente no banco.
+ * Também informa se uma mesa ainda é referenciada por alguma reserva, inclusive as concluídas do histórico.
+ * Por fim, trava e conclui em lotes as reservas ativas cujo horário já terminou.
  */
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Optional<Booking> findBookingById(Long id);
-    List<Booking> findByUser(User user);
+    @EntityGraph(Booking.DETAIL_GRAPH)
+    Optional<Booking> findByIdAndUserId(Long id, Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Booking b
+            set b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.CANCELED, b.table = null
+            where b.id = :id
+              and b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.ACTIVE
+            """)
+    int cancelIfActive(@Param("id") Long id);
+
+    @Query("""
+            select new com.example.bookingrestaurant.dto.BookingResponseDTO(b.id, t.id, t.name, b.bookingDate, b.bookingStatus)
+            from Booking b
+            left join b.table t
+            where b.user.id = :userId and b.id > :cursor
+            order by b.id
+            """)
+    List<BookingResponseDTO> findPageByUserId(@Param("userId") Long userId, @Param("cursor") Long cursor, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query("""
+            select new com.example.bookingrestaurant.dto.BookingResponseDTO(b.id, t.id, t.name, b.bookingDate, b.bookingStatus)
+            from Booking b
+            left join b.table t
+            where b.user.id = :userId
+            order by b.id
+            """)
+    Stream<BookingResponseDTO> streamByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            select new com.example.bookingrestaurant.dto.BookingSlotDTO(b.table.id, b.bookingDate)
+            from Booking b
+            where b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.ACTIVE
+              and b.table is not null
+              and b.bookingDate > :from
+            """)
+    List<BookingSlotDTO> findActiveSlotsAfter(@Param("from") LocalDateTime from);
+
+    @Query("""
+            select count(b) > 0
+            from Booking b
+            where b.table.id = :tableId
+              and b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.ACTIVE
+              and b.bookingDate > :from
+              and b.bookingDate < :to
+            """)
+    boolean existsActiveBookingBetween(@Param("tableId") Long tableId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    boolean existsByTableId(Long tableId);
+
+    @Query(value = """
+            select b.id
+            from bookings b
+            where b.booking_status = 'ACTIVE'
+              and b.booking_date < :endedBefore
+            order by b.booking_date, b.id
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<Long> lockExpiredActiveIds(@Param("endedBefore") LocalDateTime endedBefore, @Param("limit") int limit);
+
+    @Query("""
+            select new com.example.bookingrestaurant.dto.BookingSlotDTO(b.table.id, b.bookingDate)
+            from Booking b
+            where b.id in :ids
+              and b.table is not null
+            """)
+    List<BookingSlotDTO> findSlotsByBookingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Booking b
+            set b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.COMPLETED
+            where b.id in :ids
+              and b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.ACTIVE
+            """)
+    int completeIfActive(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,30 @@
+package com.example.bookingrestaurant.repositories;
+
+import com.example.bookingrestaurant.model.IdempotencyKey;
+import com.example.bookingrestaurant.model.IdempotencyKeyId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository responsável por interagir com os dados da tabela de 'idempotency_keys',
+ * É possível receber a resposta guardada de uma chave, sempre lida do banco principal,
+ * já que a chave pode ter acabado de ser gravada e ainda não ter chegado na réplica,
+ * e apagar em um único DELETE as chaves mais antigas que o tempo de retenção.
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKeyId> {
+    @Override
+    @Transactional
+    Optional<IdempotencyKey> findById(IdempotencyKeyId id);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
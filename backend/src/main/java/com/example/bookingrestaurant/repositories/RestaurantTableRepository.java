@@ -1,16 +1,60 @@
 package com.example.bookingrestaurant.repositories;
 
 import com.example.bookingrestaurant.model.RestaurantTable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository responsável por interagir com os dados da tabela de 'restaurant_tables',
- * É possível receber uma mesa de restaurante a partir do seu id.
+ * É possível receber uma mesa de restaurante a partir do seu id,
+ * inclusive travando a linha (SELECT ... FOR UPDATE) para criar reservas,
+ * também é possível travar várias mesas em uma única consulta, sempre na ordem do id.
+ * As leituras da listagem de mesas são feitas pelo TableFloorPlanCache, em memória,
+ * que carrega as mesas com findAll e findById sempre do banco principal, já que o aviso de alteração
+ * chega logo depois do commit e a réplica ainda pode ter a linha antiga.
+ * Também libera em um único UPDATE as mesas BOOKED que não possuem mais reservas ativas.
  */
 @Repository
 public interface RestaurantTableRepository extends JpaRepository<RestaurantTable, Long> {
+    @Override
+    @Transactional
+    List<RestaurantTable> findAll();
+
+    @Override
+    @Transactional
+    Optional<RestaurantTable> findById(Long id);
+
     Optional<RestaurantTable> findRestaurantTableById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from RestaurantTable t where t.id = :id")
+    Optional<RestaurantTable> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from RestaurantTable t where t.id in :ids order by t.id")
+    List<RestaurantTable> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update RestaurantTable t
+            set t.restaurantTableStatus = com.example.bookingrestaurant.model.RestaurantTableStatus.AVAILABLE
+            where t.id in :ids
+              and t.restaurantTableStatus = com.example.bookingrestaurant.model.RestaurantTableStatus.BOOKED
+              and not exists (
+                  select b.id from Booking b
+                  where b.table = t
+                    and b.bookingStatus = com.example.bookingrestaurant.model.BookingStatus.ACTIVE
+              )
+            """)
+    int releaseBookedWithoutActiveBookings(@Param("ids") Collection<Long> ids);
 }
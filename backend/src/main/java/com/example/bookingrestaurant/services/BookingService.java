@@ -1,23 +1,42 @@
 package com.example.bookingrestaurant.services;
 
+import com.example.bookingrestaurant.config.datasource.ReadYourWritesTracker;
 import com.example.bookingrestaurant.config.exception.BookingException;
 import com.example.bookingrestaurant.config.exception.InvalidRestaurantTableException;
 import com.example.bookingrestaurant.config.exception.RestaurantTableNotFoundException;
-import com.example.bookingrestaurant.config.security.userdetails.UserAuthenticated;
+import com.example.bookingrestaurant.config.metrics.BookingMetrics;
+import com.example.bookingrestaurant.config.security.auth.JwtUserPrincipal;
+import com.example.bookingrestaurant.dto.BookingAutoDTO;
 import com.example.bookingrestaurant.dto.BookingPostDTO;
+import com.example.bookingrestaurant.dto.BookingResponseDTO;
+import com.example.bookingrestaurant.dto.RestaurantTableResponseDTO;
 import com.example.bookingrestaurant.model.Booking;
 import com.example.bookingrestaurant.model.BookingStatus;
+import com.example.bookingrestaurant.model.IdempotencyKey;
+import com.example.bookingrestaurant.model.IdempotencyKeyId;
 import com.example.bookingrestaurant.model.RestaurantTable;
-import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.model.User;
 import com.example.bookingrestaurant.repositories.BookingRepository;
+import com.example.bookingrestaurant.repositories.IdempotencyKeyRepository;
+import com.example.bookingrestaurant.config.metrics.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service responsável por receber os dados passados pelo BookingController,
@@ -26,6 +45,7 @@ import java.util.List;
  * Lança as exceções relacionadas com as reservas, usuários e mesas de restaurante.
  */
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class BookingService {
 
     private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
@@ -39,37 +59,189 @@ public class BookingService {
     @Autowired
     private RestaurantTableService restaurantTableService;
 
+    @Autowired
+    private TableLockService tableLockService;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
     /**
      * Metodo responsável por criar uma nova reserva.
-     * Recebe os parametros dos dados da nova reserva e o email do usuário.
+     * Recebe os parametros dos dados da nova reserva e o usuário do token.
      * Além das validações da mesa e de usuário,
-     * valida a data da Reserva e modifica os dados da reserva e da mesa.
+     * valida a data da Reserva e ocupa o horário da mesa.
+     * A mesa fica travada em memória e no banco (SELECT ... FOR UPDATE) até o fim da transação,
+     * impedindo que dois pedidos simultâneos reservem o mesmo horário.
      * Por fim, salva o usuário e retorna o dado da reserva.
+     * As reservas criadas e rejeitadas (pelo tipo da Exceção) são contadas no BookingMetrics.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Booking createBooking(BookingPostDTO newBooking, JwtUserPrincipal principal) throws  BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        try {
+            Booking booking = this.registerBooking(newBooking, principal);
+            bookingMetrics.bookingCreated();
+            return booking;
+        } catch (BookingException | RestaurantTableNotFoundException | InvalidRestaurantTableException e) {
+            bookingMetrics.bookingRejected(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Metodo responsável por criar uma nova reserva enviada com o header Idempotency-Key.
+     * Cria a reserva como em createBooking e guarda a resposta com a chave na mesma transação,
+     * então ou a reserva e a chave são gravadas juntas ou nenhuma das duas.
+     * Caso outra requisição já tenha gravado a mesma chave, o commit falha com violação da PRIMARY KEY.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public BookingResponseDTO createBooking(BookingPostDTO newBooking, JwtUserPrincipal principal, IdempotencyKeyId idempotencyKeyId) throws  BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        BookingResponseDTO response = BookingResponseDTO.from(this.createBooking(newBooking, principal));
+        idempotencyKeyRepository.save(new IdempotencyKey(idempotencyKeyId, response));
+        return response;
+    }
+
+    /**
+     * Metodo privado com as validações e a criação da reserva, executado na transação de createBooking.
      */
-    public Booking createBooking(BookingPostDTO newBooking, String subject) throws  BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
-        UserAuthenticated userAuthenticated = userService.getUserByEmail(subject);
-        RestaurantTable table = restaurantTableService.findTableById(newBooking.tableId());
-        restaurantTableService.checkTableValidation(table);
+    private Booking registerBooking(BookingPostDTO newBooking, JwtUserPrincipal principal) throws  BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        Long userId = this.resolveUserId(principal);
 
         boolean validTime = this.checkValidBookingDate(newBooking.date());
         if(!validTime){
             throw new BookingException("Data Inválida");
         }
 
+        // O horário é guardado em segundos, o mesmo valor usado no índice e persistido no banco
+        LocalDateTime bookingDate = newBooking.date().truncatedTo(ChronoUnit.SECONDS);
+
+        tableLockService.lockForTransaction(newBooking.tableId());
+        RestaurantTable table = restaurantTableService.findTableByIdForUpdate(newBooking.tableId());
+        restaurantTableService.reserveTable(table, bookingDate);
+
         Booking booking = new Booking();
-        booking.setUser(userAuthenticated.getUser());
+        booking.setUser(userService.getUserReference(userId));
         booking.setTable(table);
-        booking.setBookingDate(newBooking.date());
+        booking.setBookingDate(bookingDate);
         booking.setBookingStatus(BookingStatus.ACTIVE);
 
-        table.setStatus(RestaurantTableStatus.BOOKED);
-
         saveBooking(booking);
+        readYourWritesTracker.recordWrite(userId);
 
-        logger.info("Reserva {} criada pelo usuário {}", booking.getId(), subject);
+        logger.info("Reserva {} criada pelo usuário {}", booking.getId(), principal.email());
         return booking;
     }
 
+    /**
+     * Metodo responsável por criar várias reservas de uma vez, como em eventos e grupos.
+     * Recebe a lista de reservas e o usuário do token.
+     * O usuário é resolvido uma única vez e todas as mesas são travadas e lidas em uma única consulta,
+     * os locks em memória na ordem dos stripes e as linhas na ordem do id,
+     * para que dois lotes com mesas em comum não fiquem esperando um pelo outro.
+     * Tudo acontece em uma transação: se uma reserva for inválida nenhuma é criada,
+     * e as reservas são inseridas juntas no final com saveAll.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<Booking> createBookings(List<BookingPostDTO> newBookings, JwtUserPrincipal principal) throws BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        try {
+            List<Booking> bookings = this.registerBookings(newBookings, principal);
+            bookings.forEach(booking -> bookingMetrics.bookingCreated());
+            return bookings;
+        } catch (BookingException | RestaurantTableNotFoundException | InvalidRestaurantTableException e) {
+            bookingMetrics.bookingRejected(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Metodo privado com as validações e a criação do lote de reservas, executado na transação de createBookings.
+     */
+    private List<Booking> registerBookings(List<BookingPostDTO> newBookings, JwtUserPrincipal principal) throws BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        Long userId = this.resolveUserId(principal);
+
+        for(BookingPostDTO newBooking : newBookings){
+            if(newBooking.tableId() == null || newBooking.date() == null){
+                throw new BookingException("Informe a mesa e a data de todas as reservas");
+            }
+            if(!this.checkValidBookingDate(newBooking.date())){
+                throw new BookingException("Data Inválida");
+            }
+        }
+
+        SortedSet<Long> tableIds = new TreeSet<>();
+        newBookings.forEach(newBooking -> tableIds.add(newBooking.tableId()));
+        tableLockService.lockAllForTransaction(tableIds);
+        Map<Long, RestaurantTable> tables = restaurantTableService.findTablesByIdForUpdate(tableIds);
+
+        User user = userService.getUserReference(userId);
+        List<Booking> bookings = new ArrayList<>(newBookings.size());
+        for(BookingPostDTO newBooking : newBookings){
+            LocalDateTime bookingDate = newBooking.date().truncatedTo(ChronoUnit.SECONDS);
+            RestaurantTable table = tables.get(newBooking.tableId());
+            restaurantTableService.reserveTable(table, bookingDate);
+
+            Booking booking = new Booking();
+            booking.setUser(user);
+            booking.setTable(table);
+            booking.setBookingDate(bookingDate);
+            booking.setBookingStatus(BookingStatus.ACTIVE);
+            bookings.add(booking);
+        }
+
+        bookingRepository.saveAll(bookings);
+        readYourWritesTracker.recordWrite(userId);
+
+        logger.info("Lote de {} reservas criado pelo usuário {}", bookings.size(), principal.email());
+        return bookings;
+    }
+
+    /**
+     * Metodo responsável por criar a reserva de um grupo sem que o cliente escolha a mesa.
+     * Recebe o horário, a quantidade de pessoas e o usuário do token.
+     * As mesas são escolhidas na planta do restaurante em memória (uma mesa ou mesas juntas da mesma área),
+     * trocando as que já estão ocupadas no banco antes de travar qualquer uma,
+     * e reservadas pelo mesmo caminho de createBookings, todas juntas ou nenhuma.
+     * Retorna uma reserva para cada mesa do grupo.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<Booking> createAutoBooking(BookingAutoDTO newBooking, JwtUserPrincipal principal) throws BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        try {
+            if(!this.checkValidBookingDate(newBooking.date())){
+                throw new BookingException("Data Inválida");
+            }
+
+            LocalDateTime bookingDate = newBooking.date().truncatedTo(ChronoUnit.SECONDS);
+            List<RestaurantTableResponseDTO> tables = restaurantTableService.getTableAssignment(bookingDate, newBooking.partySize());
+            List<BookingPostDTO> assignment = tables.stream()
+                    .map(table -> new BookingPostDTO(table.id(), bookingDate))
+                    .toList();
+
+            List<Booking> bookings = this.registerBookings(assignment, principal);
+            bookings.forEach(booking -> bookingMetrics.bookingCreated());
+            return bookings;
+        } catch (BookingException | RestaurantTableNotFoundException | InvalidRestaurantTableException e) {
+            bookingMetrics.bookingRejected(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Metodo privado responsável por obter o id do usuário autenticado.
+     * O id vem da claim do token, então normalmente não há consulta ao banco,
+     * somente tokens antigos sem a claim procuram o usuário pelo email.
+     */
+    private Long resolveUserId(JwtUserPrincipal principal) throws UsernameNotFoundException {
+        if(principal.id() != null){
+            return principal.id();
+        }
+        return userService.getUserByEmail(principal.email()).getUser().getId();
+    }
+
     /**
      * Metodo responsável por checar se uma data de Reserva é valida,
      * o parâmetro para validação é do período de 30 dias.
@@ -88,62 +260,79 @@ public class BookingService {
      */
     private void saveBooking(Booking booking){
         bookingRepository.save(booking);
-        logger.info("Reserva de id {} salva no banco", booking.getId());
+        logger.debug("Reserva de id {} salva no banco", booking.getId());
     }
 
     /**
-     * Metodo privado responsável por procurar uma reserva pelo seu id.
+     * Metodo privado responsável por procurar uma reserva pelo seu id entre as reservas do usuário.
+     * A consulta já filtra pelo dono da reserva, então o custo não depende do histórico do usuário.
      * Caso não seja encontrada, joga uma exceção com reserva não encontrada.
      */
-    private Booking findBookingById(Long id) throws BookingException {
-        return bookingRepository.findBookingById(id)
+    private Booking findUserBookingById(Long id, Long userId) throws BookingException {
+        return bookingRepository.findByIdAndUserId(id, userId)
                 .orElseThrow(() -> new BookingException("Reserva não encontrada"));
     }
 
     /**
-     * Metodo responsável por procurar uma lista de reservas a partir de um usuário.
-     * Recebe um email do usuário(do token) e converte em um Usuário autenticado.
-     * Retorna a lista ou null caso o usuário não possua reservas.
+     * Metodo responsável por procurar uma página de reservas de um usuário.
+     * Recebe o usuário do token, o cursor (id da última reserva recebida) e o tamanho da página.
+     * A paginação é feita por keyset no id, então o custo não depende da posição da página.
+     * As reservas já vêm projetadas do banco, sem carregar as entidades de usuário e mesa.
+     * A leitura vai para a réplica, a não ser que o usuário tenha alterado uma reserva há pouco tempo.
      */
-    public List<Booking> getBookingFromUser(String subject) throws UsernameNotFoundException {
-        UserAuthenticated userAuthenticated = userService.getUserByEmail(subject);
-        logger.info("O usuário {} puxou as informações de suas reservas.", subject);
-        return bookingRepository.findByUser(userAuthenticated.getUser());
+    @Transactional(readOnly = true)
+    public List<BookingResponseDTO> getBookingFromUser(JwtUserPrincipal principal, Long cursor, int limit) throws UsernameNotFoundException {
+        Long userId = this.resolveUserId(principal);
+        readYourWritesTracker.routeToPrimaryIfRecent(userId);
+        logger.info("O usuário {} puxou uma página de suas reservas a partir do cursor {}.", principal.email(), cursor);
+        return bookingRepository.findPageByUserId(userId, cursor == null ? 0L : cursor, Limit.of(limit));
     }
 
     /**
-     * Metodo responsável por mudar o status de uma reserva de Active para Canceled.
-     * Recebe o id da reserva e o email do usuário(do token).
-     * Faz as validações para modificar somente a lista do usuário autenticado,
-     * lança um erro caso o usuário tente cancelar uma reserva já cancelada
-     * Salva a nova reserva cancelada e retorna a reserva.
+     * Metodo responsável por percorrer todas as reservas de um usuário sem carregá-las de uma vez.
+     * Recebe o usuário do token e o consumidor de cada reserva lida do cursor JDBC.
+     * As reservas são projetadas direto em DTOs, que não ficam no contexto de persistência,
+     * mantendo o uso de memória constante independente da quantidade de reservas.
      */
-    public Booking softDeleteBooking(Long id, String subject) throws BookingException {
+    @Transactional(readOnly = true)
+    public void streamBookingsFromUser(JwtUserPrincipal principal, Consumer<BookingResponseDTO> consumer) throws UsernameNotFoundException {
+        Long userId = this.resolveUserId(principal);
+        readYourWritesTracker.routeToPrimaryIfRecent(userId);
+        logger.info("O usuário {} puxou o stream de suas reservas.", principal.email());
 
-        List<Booking> userBookings = this.getBookingFromUser(subject);
-        if(userBookings.isEmpty()){
-            throw new BookingException("O usuário não fez nenhuma reserva");
+        try(Stream<BookingResponseDTO> bookings = bookingRepository.streamByUserId(userId)){
+            bookings.forEach(consumer);
         }
+    }
 
-        Booking booking = this.findBookingById(id);
-        if(!userBookings.contains(booking)){
-            throw new BookingException("Reserva não encontrada");
-        }
+    /**
+     * Metodo responsável por mudar o status de uma reserva de Active para Canceled.
+     * Recebe o id da reserva e o usuário do token.
+     * Procura a reserva somente entre as do usuário autenticado e
+     * cancela com um UPDATE condicional, que só altera reservas ainda ativas,
+     * lança um erro caso o usuário tente cancelar uma reserva já cancelada.
+     * Retorna a reserva cancelada.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Booking softDeleteBooking(Long id, JwtUserPrincipal principal) throws BookingException {
+        Long userId = this.resolveUserId(principal);
+        Booking booking = this.findUserBookingById(id, userId);
 
         RestaurantTable table = booking.getTable();
-        if(table == null){
+        if(table == null || bookingRepository.cancelIfActive(booking.getId()) == 0){
             throw new BookingException("Reserva já cancelada");
         }
 
-        table.setStatus(RestaurantTableStatus.AVAILABLE);
+        restaurantTableService.releaseTable(table.getId(), booking.getBookingDate());
 
         booking.setTable(null);
         logger.info("Mesa {} dissociada da Reserva {}.", table.getId(), booking.getId());
         booking.setBookingStatus(BookingStatus.CANCELED);
 
-        this.saveBooking(booking);
-        logger.info("A reserva {} foi cancelada com sucesso por {}.", booking.getId(), subject);
+        bookingMetrics.bookingCancelled();
+        readYourWritesTracker.recordWrite(userId);
+        logger.info("A reserva {} foi cancelada com sucesso por {}.", booking.getId(), principal.email());
 
         return booking;
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.example.bookingrestaurant.services;
+
+import com.example.bookingrestaurant.config.floorplan.FloorPlanChangedEvent;
+import com.example.bookingrestaurant.config.metrics.BookingMetrics;
+import com.example.bookingrestaurant.dto.BookingSlotDTO;
+import com.example.bookingrestaurant.repositories.BookingRepository;
+import com.example.bookingrestaurant.repositories.IdempotencyKeyRepository;
+import com.example.bookingrestaurant.repositories.RestaurantTableRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service responsável por concluir as reservas cujo horário já terminou.
+ * Periodicamente procura as reservas ACTIVE vencidas, em lotes limitados e na ordem do índice (horário, id),
+ * marca o lote como COMPLETED e libera as mesas que ficaram BOOKED sem nenhuma reserva ativa,
+ * ambos com um único UPDATE por lote.
+ * Depois do commit, os horários concluídos saem do índice de disponibilidade e as mesas liberadas são recarregadas na planta.
+ * Cada lote roda na sua própria transação curta, e as reservas travadas por outros pedidos
+ * (um cancelamento em andamento, por exemplo) são puladas com SKIP LOCKED em vez de esperadas.
+ * Somente uma instância da aplicação varre por vez: cada lote pega um advisory lock do PostgreSQL,
+ * e a instância que não consegue o lock encerra a rodada.
+ * No fim de cada rodada também apaga as Idempotency-Keys mais antigas que 'app.idempotency.retention'.
+ */
+@Service
+@ConditionalOnProperty(name = "booking.sweeper.enabled", havingValue = "true")
+public class ExpiredBookingSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredBookingSweeper.class);
+
+    /// Chave do advisory lock que elege a instância responsável pela varredura
+    static final long ADVISORY_LOCK_KEY = 0x426F6F6B696E67L;
+
+    private static final int TRANSACTION_TIMEOUT_SECONDS = 5;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RestaurantTableRepository restaurantTableRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TableAvailabilityService availabilityService;
+
+    @Autowired
+    private TableFloorPlanCache floorPlanCache;
+
+    @Autowired
+    private BookingMetrics bookingMetrics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${booking.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.sweeper.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${app.idempotency.retention:24h}")
+    private Duration idempotencyRetention;
+
+    public ExpiredBookingSweeper(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(TRANSACTION_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Metodo responsável por uma rodada da varredura.
+     * Processa no máximo 'max-batches' lotes, parando antes caso não existam mais reservas vencidas
+     * ou outra instância esteja varrendo, assim uma rodada nunca ocupa uma conexão por muito tempo.
+     */
+    @Scheduled(fixedDelayString = "${booking.sweeper.interval:PT1M}", initialDelayString = "${booking.sweeper.initial-delay:PT1M}")
+    public void sweep() {
+        LocalDateTime endedBefore = LocalDateTime.now().minus(availabilityService.getBookingDuration());
+        int completed = 0;
+
+        for(int batch = 0; batch < maxBatches; batch++){
+            Integer count = transactionTemplate.execute(status -> this.completeBatch(endedBefore));
+            if(count == null || count == 0){
+                break;
+            }
+            completed += count;
+        }
+
+        if(completed > 0){
+            logger.info("{} reservas vencidas concluídas pela varredura.", completed);
+        }
+
+        Integer purged = transactionTemplate.execute(status ->
+                idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(idempotencyRetention)));
+        logger.debug("{} Idempotency-Keys antigas apagadas pela varredura.", purged);
+    }
+
+    /**
+     * Metodo privado com um lote da varredura, executado em uma transação.
+     * Retorna a quantidade de reservas concluídas, ou 0 caso outra instância tenha o lock.
+     */
+    private int completeBatch(LocalDateTime endedBefore) {
+        if(!this.tryAdvisoryLock()){
+            logger.debug("Varredura de reservas em andamento em outra instância.");
+            return 0;
+        }
+
+        List<Long> bookingIds = bookingRepository.lockExpiredActiveIds(endedBefore, batchSize);
+        if(bookingIds.isEmpty()){
+            return 0;
+        }
+
+        List<BookingSlotDTO> slots = bookingRepository.findSlotsByBookingIds(bookingIds);
+        int completed = bookingRepository.completeIfActive(bookingIds);
+        bookingMetrics.bookingsCompleted(completed);
+
+        List<Long> tableIds = slots.stream().map(BookingSlotDTO::tableId).distinct().toList();
+        boolean released = this.releaseBookedTables(tableIds);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                slots.forEach(slot -> availabilityService.release(slot.tableId(), slot.bookingDate()));
+                if(released){
+                    tableIds.forEach(floorPlanCache::refresh);
+                }
+            }
+        });
+        return completed;
+    }
+
+    /**
+     * Metodo privado responsável por voltar para AVAILABLE as mesas do lote que ainda estão BOOKED
+     * e não possuem mais reservas ativas.
+     * A condição fica toda no UPDATE, já que a planta em memória desta instância pode estar desatualizada,
+     * e as outras instâncias são avisadas depois do commit.
+     * Retorna se alguma mesa foi liberada.
+     */
+    private boolean releaseBookedTables(List<Long> tableIds) {
+        if(tableIds.isEmpty()){
+            return false;
+        }
+
+        int released = restaurantTableRepository.releaseBookedWithoutActiveBookings(tableIds);
+        if(released == 0){
+            return false;
+        }
+
+        tableIds.forEach(tableId -> eventPublisher.publishEvent(new FloorPlanChangedEvent(tableId)));
+        logger.info("{} mesas liberadas pela varredura de reservas.", released);
+        return true;
+    }
+
+    private boolean tryAdvisoryLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY));
+    }
+}
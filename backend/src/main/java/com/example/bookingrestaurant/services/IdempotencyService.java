@@ -0,0 +1,148 @@
+package com.example.bookingrestaurant.services;
+
+import com.example.bookingrestaurant.config.exception.BookingException;
+import com.example.bookingrestaurant.config.exception.InvalidRestaurantTableException;
+import com.example.bookingrestaurant.config.exception.RestaurantTableNotFoundException;
+import com.example.bookingrestaurant.config.security.auth.JwtUserPrincipal;
+import com.example.bookingrestaurant.dto.BookingPostDTO;
+import com.example.bookingrestaurant.dto.BookingResponseDTO;
+import com.example.bookingrestaurant.model.IdempotencyKey;
+import com.example.bookingrestaurant.model.IdempotencyKeyId;
+import com.example.bookingrestaurant.repositories.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Service responsável por criar reservas enviadas com o header Idempotency-Key.
+ * Cada chave (por usuário) fica em um mapa em memória limitado e com TTL, guardando a execução da reserva:
+ * pedidos repetidos ao mesmo tempo esperam a mesma execução em vez de criar outra,
+ * e os que chegam depois recebem a resposta guardada sem validar nem acessar o banco.
+ * Quando a chave não está em memória (expirou, reinício ou outra instância), a resposta é
+ * procurada na tabela de 'idempotency_keys', gravada na mesma transação da reserva.
+ * Reutilizar a chave com outra mesa ou horário lança uma Exceção de Reserva.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Cache<IdempotencyKeyId, CompletableFuture<BookingResponseDTO>> executions;
+
+    public IdempotencyService(@Value("${app.idempotency.cache.maximum-size:10000}") long maximumSize,
+                              @Value("${app.idempotency.cache.ttl:10m}") Duration ttl) {
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Metodo responsável por criar a reserva uma única vez para a chave passada.
+     * Recebe a chave do header, os dados da nova reserva e o usuário do token.
+     * Retorna a resposta da reserva, criada agora ou guardada por uma tentativa anterior.
+     */
+    public BookingResponseDTO createBooking(String idempotencyKey, BookingPostDTO newBooking, JwtUserPrincipal principal) throws BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException, UsernameNotFoundException {
+        IdempotencyKeyId id = new IdempotencyKeyId(principal.email(), idempotencyKey);
+
+        CompletableFuture<BookingResponseDTO> execution = new CompletableFuture<>();
+        CompletableFuture<BookingResponseDTO> running = executions.asMap().putIfAbsent(id, execution);
+        if(running != null){
+            logger.debug("Idempotency-Key {} repetida pelo usuário {}.", idempotencyKey, principal.email());
+            return checkSameRequest(await(running), newBooking);
+        }
+
+        try {
+            BookingResponseDTO response = this.findStoredResponse(id).orElse(null);
+            if(response == null){
+                response = bookingService.createBooking(newBooking, principal, id);
+            }
+            execution.complete(response);
+            return checkSameRequest(response, newBooking);
+        } catch (InvalidRestaurantTableException | DataIntegrityViolationException e) {
+            // Outra instância pode ter criado a reserva com a mesma chave ao mesmo tempo
+            Optional<BookingResponseDTO> stored = this.findStoredResponse(id);
+            if(stored.isPresent()){
+                execution.complete(stored.get());
+                return checkSameRequest(stored.get(), newBooking);
+            }
+            fail(id, execution, e);
+            throw e;
+        } catch (BookingException | RestaurantTableNotFoundException | RuntimeException e) {
+            fail(id, execution, e);
+            throw e;
+        }
+    }
+
+    private Optional<BookingResponseDTO> findStoredResponse(IdempotencyKeyId id) {
+        return idempotencyKeyRepository.findById(id).map(IdempotencyKey::toResponse);
+    }
+
+    /**
+     * Metodo privado responsável por repassar o erro aos pedidos que esperavam a mesma execução.
+     * Erros não ficam guardados, então uma nova tentativa depois executa a reserva novamente.
+     */
+    private void fail(IdempotencyKeyId id, CompletableFuture<BookingResponseDTO> execution, Exception e) {
+        executions.asMap().remove(id, execution);
+        execution.completeExceptionally(e);
+    }
+
+    /**
+     * Metodo privado responsável por aguardar a execução em andamento da mesma chave,
+     * lançando a mesma Exceção caso ela tenha falhado.
+     */
+    private BookingResponseDTO await(CompletableFuture<BookingResponseDTO> running) throws BookingException, RestaurantTableNotFoundException, InvalidRestaurantTableException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof BookingException bookingException){
+                throw bookingException;
+            }
+            if(cause instanceof RestaurantTableNotFoundException notFoundException){
+                throw notFoundException;
+            }
+            if(cause instanceof InvalidRestaurantTableException invalidException){
+                throw invalidException;
+            }
+            if(cause instanceof RuntimeException runtimeException){
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Metodo privado responsável por checar se a chave foi usada com a mesma mesa e horário.
+     * Caso contrário, joga uma Exceção de Reserva.
+     */
+    private BookingResponseDTO checkSameRequest(BookingResponseDTO response, BookingPostDTO newBooking) throws BookingException {
+        boolean sameTable = Objects.equals(response.tableId(), newBooking.tableId());
+        boolean sameDate = newBooking.date() != null
+                && response.bookingDate().equals(newBooking.date().truncatedTo(ChronoUnit.SECONDS));
+
+        if(!sameTable || !sameDate){
+            throw new BookingException("Idempotency-Key já usada em outra reserva");
+        }
+        return response;
+    }
+}
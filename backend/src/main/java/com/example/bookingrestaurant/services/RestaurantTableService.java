@@ -2,24 +2,44 @@ package com.example.bookingrestaurant.services;
 
 import com.example.bookingrestaurant.config.exception.InvalidRestaurantTableException;
 import com.example.bookingrestaurant.config.exception.RestaurantTableNotFoundException;
+import com.example.bookingrestaurant.config.floorplan.FloorPlanChangedEvent;
 import com.example.bookingrestaurant.dto.RestaurantTableDTO;
+import com.example.bookingrestaurant.dto.RestaurantTableResponseDTO;
 import com.example.bookingrestaurant.model.RestaurantTable;
 import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.repositories.BookingRepository;
 import com.example.bookingrestaurant.repositories.RestaurantTableRepository;
+import com.example.bookingrestaurant.config.metrics.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service responsável por receber os dados passados pelo RestaurantTableController e BookingService
  * sendo possível criar, salvar, obter, modificar e deletar os dados das mesas diretamente com o banco.
  * Possui um atributo para obtenção de dados: RestaurantTableRepository.
+ * Consulta a disponibilidade das mesas por horário através do TableAvailabilityService
+ * e mantém a planta do restaurante em memória (TableFloorPlanCache) atualizada,
+ * avisando as outras instâncias da aplicação a cada alteração de mesa.
  * Lança as exceções relacionadas com as Mesas de Restaurante.
  */
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class RestaurantTableService {
 
     private static final Logger logger = LoggerFactory.getLogger(RestaurantTableService.class);
@@ -27,6 +47,24 @@ public class RestaurantTableService {
     @Autowired
     private RestaurantTableRepository repository;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TableAvailabilityService availabilityService;
+
+    @Autowired
+    private TableFloorPlanCache floorPlanCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${booking.auto.max-tables:4}")
+    private int maxCombinedTables;
+
+    @Value("${booking.auto.max-attempts:3}")
+    private int maxAssignmentAttempts;
+
     /**
      * Metodo responsável por procurar a mesa de acordo com o id passado.
      * Retorna a mesa ou uma exceção de Mesa não Encontrada
@@ -36,6 +74,31 @@ public class RestaurantTableService {
                          .orElseThrow(() -> new RestaurantTableNotFoundException("Mesa de Restaurante não encontrada"));
     }
 
+    /**
+     * Metodo responsável por procurar a mesa de acordo com o id passado,
+     * travando a linha no banco até o fim da transação atual.
+     * Retorna a mesa ou uma exceção de Mesa não Encontrada
+     */
+    public RestaurantTable findTableByIdForUpdate(Long id) throws RestaurantTableNotFoundException {
+        return repository.findByIdForUpdate(id)
+                         .orElseThrow(() -> new RestaurantTableNotFoundException("Mesa de Restaurante não encontrada"));
+    }
+
+    /**
+     * Metodo responsável por procurar várias mesas em uma única consulta,
+     * travando as linhas no banco (na ordem do id) até o fim da transação atual.
+     * Retorna as mesas indexadas pelo id ou uma exceção de Mesa não Encontrada caso falte alguma.
+     */
+    public Map<Long, RestaurantTable> findTablesByIdForUpdate(Collection<Long> ids) throws RestaurantTableNotFoundException {
+        Map<Long, RestaurantTable> tables = new HashMap<>();
+        repository.findAllByIdForUpdate(ids).forEach(table -> tables.put(table.getId(), table));
+
+        if(tables.size() != ids.size()){
+            throw new RestaurantTableNotFoundException("Mesa de Restaurante não encontrada");
+        }
+        return tables;
+    }
+
     /**
      * Metodo responsável por criar uma nova mesa.
      * Recebe os dados passados pelo RestaurantTableController.
@@ -56,27 +119,88 @@ public class RestaurantTableService {
      */
     private void saveRestaurantTable(RestaurantTable table){
         repository.save(table);
-        logger.info("Mesa de id {} salva no banco de dados", table.getId());
+        floorPlanCache.put(table);
+        eventPublisher.publishEvent(new FloorPlanChangedEvent(table.getId()));
+        logger.debug("Mesa de id {} salva no banco de dados", table.getId());
+    }
+
+    /**
+     * Metodo responsável por retornar uma página de mesas.
+     * Recebe o cursor (id da última mesa recebida) e o tamanho da página.
+     * A paginação é feita por keyset no id sobre a planta do restaurante em memória, sem acessar o banco.
+     */
+    public List<RestaurantTableResponseDTO> getAllTables(String email, Long cursor, int limit) {
+        logger.info("Uma página de mesas a partir do cursor {} foi selecionada pelo usuário com email {}.", cursor, email);
+        return floorPlanCache.findPage(cursor == null ? 0L : cursor, limit);
+    }
+
+    /**
+     * Metodo responsável por percorrer todas as mesas, lidas do snapshot da planta do restaurante.
+     * O snapshot é imutável, então a leitura não depende de transação nem de lock.
+     */
+    public void streamAllTables(String email, Consumer<RestaurantTableResponseDTO> consumer) {
+        logger.info("Todas as mesas foram lidas em stream pelo usuário com email {}.", email);
+        floorPlanCache.findAll().forEach(consumer);
+    }
+
+    /**
+     * Metodo responsável por retornar as mesas livres em um horário para uma quantidade de pessoas.
+     * A busca é feita somente nos índices em memória, sem acessar o banco.
+     * Retorna as mesas da menor para a maior capacidade.
+     */
+    public List<RestaurantTableResponseDTO> getAvailableTables(LocalDateTime start, int people, String email) {
+        logger.info("Mesas disponíveis para {} pessoas em {} consultadas pelo usuário {}.", people, start, email);
+        return floorPlanCache.findAvailable(people, start);
     }
 
     /**
-     * Metodo responsável por retornar todas as mesas do banco.
-     * Retorna as mesas para o RestaurantTableController.
+     * Metodo responsável por escolher as mesas livres em um horário para um grupo de pessoas,
+     * usado na reserva automática.
+     * Escolhe a menor mesa que comporta o grupo ou, caso não exista, a menor combinação de mesas
+     * de uma mesma área (até 'booking.auto.max-tables' mesas), pela planta em memória.
+     * Como o índice de disponibilidade é local, as mesas escolhidas são confirmadas no banco,
+     * e as ocupadas por outra instância ficam de fora de uma nova escolha, até 'booking.auto.max-attempts' tentativas.
+     * Caso nenhuma mesa ou combinação livre comporte o grupo, joga uma Exceção de Mesa Inválida.
      */
-    public List<RestaurantTable> getAllTables(String email) {
-        logger.info("Todas as mesas foram selecionadas pelo usuário com email {}.", email);
-        return repository.findAll();
+    public List<RestaurantTableResponseDTO> getTableAssignment(LocalDateTime start, int people) throws InvalidRestaurantTableException {
+        Set<Long> conflicting = new HashSet<>();
+        for(int attempt = 1; attempt <= maxAssignmentAttempts; attempt++){
+            List<RestaurantTableResponseDTO> assignment = floorPlanCache.findAssignment(people, start, maxCombinedTables, conflicting);
+            if(assignment.isEmpty()){
+                break;
+            }
+
+            List<Long> booked = assignment.stream()
+                    .map(RestaurantTableResponseDTO::id)
+                    .filter(tableId -> availabilityService.hasConflictInDatabase(tableId, start))
+                    .toList();
+            if(booked.isEmpty()){
+                return assignment;
+            }
+
+            logger.debug("Mesas {} ocupadas em {} por outra instância, escolhendo novamente (tentativa {}).", booked, start, attempt);
+            conflicting.addAll(booked);
+        }
+        throw new InvalidRestaurantTableException("Nenhuma mesa disponível para o grupo nesse horário");
     }
 
     /**
      * Metodo responsável por deletar a mesa no banco.
      * Faz uma verificação inicial, para evitar que uma mesa seja apagada se estiver em uso.
+     * As reservas concluídas continuam apontando para a mesa no histórico, então uma mesa com qualquer reserva
+     * no banco não pode ser apagada, somente desativada, e nesse caso joga uma Exceção de Mesa Inválida.
      * Não retorna a mesa.
      */
     public void deleteTable(RestaurantTable table, String email) throws InvalidRestaurantTableException {
         checkTableValidation(table);
+        if(bookingRepository.existsByTableId(table.getId())){
+            throw new InvalidRestaurantTableException("Mesa possui reservas no histórico, desative a mesa em vez de apagar");
+        }
 
         repository.delete(table);
+        availabilityService.removeTable(table.getId());
+        floorPlanCache.remove(table.getId());
+        eventPublisher.publishEvent(new FloorPlanChangedEvent(table.getId()));
         logger.info("Mesa de id {} apagada do banco de dados pelo usuário {}.", table.getId(), email);
     }
 
@@ -102,6 +226,10 @@ public class RestaurantTableService {
             table.setStatus(updates.status());
         }
 
+        if(updates.area() != null){
+            table.setArea(updates.area());
+        }
+
         this.saveRestaurantTable(table);
         logger.info("Mesa de id {} modificada pelo usuário {} com sucesso.", table.getId(), email);
 
@@ -109,13 +237,30 @@ public class RestaurantTableService {
     }
 
     /**
-     * Metodo responsável por checar a validação do status de uma mesa.
+     * Metodo responsável por checar se uma mesa pode ser modificada ou apagada.
      * Recebe a mesa que precisa ser checada.
-     * Verifica se a mesa tem o status de BOOKED(reservada) ou INACTIVE(inativa),
+     * Verifica se a mesa está INACTIVE(inativa) ou se ainda possui reservas por acontecer,
      * caso seja, joga uma Exceção de Mesa Inválida.
      */
     public void checkTableValidation(RestaurantTable table) throws InvalidRestaurantTableException {
-        boolean tableBooked = table.getStatus() == RestaurantTableStatus.BOOKED;
+        boolean tableBooked = availabilityService.hasUpcomingBookings(table.getId());
+        boolean tableInactive = table.getStatus() == RestaurantTableStatus.INACTIVE;
+        boolean invalidTable = tableBooked || tableInactive;
+
+        if(invalidTable) {
+            throw new InvalidRestaurantTableException("Mesa Inativa ou Reservada");
+        }
+    }
+
+    /**
+     * Metodo responsável por checar se uma mesa pode ser reservada em um horário.
+     * Recebe a mesa e o horário de início da reserva.
+     * Verifica se a mesa está INACTIVE(inativa) ou se o horário já está ocupado,
+     * um horário ocupado no índice em memória é confirmado no banco antes de recusar,
+     * caso seja, joga uma Exceção de Mesa Inválida.
+     */
+    public void checkTableValidation(RestaurantTable table, LocalDateTime start) throws InvalidRestaurantTableException {
+        boolean tableBooked = availabilityService.isBooked(table.getId(), start);
         boolean tableInactive = table.getStatus() == RestaurantTableStatus.INACTIVE;
         boolean invalidTable = tableBooked || tableInactive;
 
@@ -123,4 +268,60 @@ public class RestaurantTableService {
             throw new InvalidRestaurantTableException("Mesa Inativa ou Reservada");
         }
     }
+
+    /**
+     * Metodo responsável por ocupar o horário de uma mesa para uma nova reserva.
+     * Valida a mesa no horário pelo índice em memória e confirma no banco,
+     * caso outro pedido tenha ocupado o horário antes, joga uma Exceção de Mesa Inválida.
+     * Dentro de uma transação, o horário é liberado novamente se ela não for confirmada.
+     */
+    public void reserveTable(RestaurantTable table, LocalDateTime start) throws InvalidRestaurantTableException {
+        checkTableValidation(table, start);
+
+        boolean booked = availabilityService.hasConflictInDatabase(table.getId(), start)
+                || !availabilityService.reserve(table.getId(), start);
+        if(booked) {
+            throw new InvalidRestaurantTableException("Mesa Inativa ou Reservada");
+        }
+
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return 0;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if(status != STATUS_COMMITTED){
+                        availabilityService.release(table.getId(), start);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Metodo responsável por liberar o horário de uma mesa,
+     * usado quando uma reserva é cancelada.
+     * Dentro de uma transação, o horário só é liberado depois do commit.
+     */
+    public void releaseTable(Long tableId, LocalDateTime start) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            availabilityService.release(tableId, start);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return 0;
+            }
+
+            @Override
+            public void afterCommit() {
+                availabilityService.release(tableId, start);
+            }
+        });
+    }
 }
\ No newline at end of file
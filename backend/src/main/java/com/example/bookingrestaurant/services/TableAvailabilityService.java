@@ -0,0 +1,202 @@
+package com.example.bookingrestaurant.services;
+
+import com.example.bookingrestaurant.dto.BookingSlotDTO;
+import com.example.bookingrestaurant.repositories.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Service responsável por manter em memória os horários ocupados de cada mesa.
+ * Cada mesa possui um conjunto ordenado com o horário de início das suas reservas ativas,
+ * como todas as reservas têm a mesma duração, uma mesa está livre em T
+ * se não existir nenhum início no intervalo aberto (T - duração, T + duração).
+ * Essa consulta é feita em O(log n) sobre o conjunto da mesa.
+ * O índice é reconstruído a partir do BookingRepository quando a aplicação inicia.
+ * Como cada instância tem o seu índice, um horário ocupado nele é confirmado no banco antes de recusar a reserva.
+ * Os horários ocupados dentro da transação atual ficam guardados nela até o fim, já que ainda não estão no banco.
+ */
+@Service
+public class TableAvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableAvailabilityService.class);
+
+    private final Map<Long, NavigableSet<LocalDateTime>> slotsByTable = new ConcurrentHashMap<>();
+
+    /// Chave dos horários ocupados na transação atual, guardados como recurso do TransactionSynchronizationManager
+    private final Object transactionSlotsKey = new Object();
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${booking.duration.minutes:120}")
+    private long bookingDurationMinutes;
+
+    /**
+     * Metodo responsável por reconstruir o índice com as reservas ativas do banco.
+     * Só carrega as reservas que ainda podem ocupar algum horário.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<BookingSlotDTO> slots = bookingRepository.findActiveSlotsAfter(LocalDateTime.now().minus(getBookingDuration()));
+
+        slotsByTable.clear();
+        slots.forEach(slot -> slotsOf(slot.tableId()).add(slot.bookingDate()));
+
+        logger.info("Índice de disponibilidade reconstruído com {} reservas ativas.", slots.size());
+    }
+
+    /**
+     * Metodo responsável por verificar se a mesa está livre a partir do horário passado,
+     * considerando a duração padrão de uma reserva.
+     */
+    public boolean isAvailable(Long tableId, LocalDateTime start) {
+        NavigableSet<LocalDateTime> slots = slotsByTable.get(tableId);
+        return slots == null || !overlaps(slots, start);
+    }
+
+    /**
+     * Metodo responsável por verificar se o horário da mesa está realmente ocupado.
+     * O índice é local de cada instância, então um horário liberado por um cancelamento em outra instância
+     * continua ocupado aqui: por isso o índice é só uma dica, e um horário ocupado nele é confirmado no banco.
+     * Caso o banco não tenha reserva ativa no intervalo, os horários antigos são removidos do índice,
+     * exceto os ocupados pela transação atual, como a reserva anterior da mesma mesa em um lote, que ainda não foi salva.
+     */
+    public boolean isBooked(Long tableId, LocalDateTime start) {
+        if(this.isAvailable(tableId, start)){
+            return false;
+        }
+        if(this.hasConflictInDatabase(tableId, start) || this.isReservedInTransaction(tableId, start)){
+            return true;
+        }
+
+        NavigableSet<LocalDateTime> slots = slotsByTable.get(tableId);
+        if(slots != null){
+            Duration duration = getBookingDuration();
+            synchronized (slots) {
+                slots.subSet(start.minus(duration), false, start.plus(duration), false).clear();
+            }
+        }
+        logger.debug("Horário {} da mesa {} liberado por outra instância, removido do índice.", start, tableId);
+        return false;
+    }
+
+    /**
+     * Metodo responsável por ocupar o horário de uma mesa.
+     * A verificação e a ocupação acontecem de forma atômica para a mesa.
+     * Retorna false caso o horário já esteja ocupado.
+     */
+    public boolean reserve(Long tableId, LocalDateTime start) {
+        NavigableSet<LocalDateTime> slots = slotsOf(tableId);
+        synchronized (slots) {
+            slots.headSet(LocalDateTime.now().minus(getBookingDuration())).clear();
+
+            if(overlaps(slots, start) || !slots.add(start)){
+                return false;
+            }
+        }
+        this.trackInTransaction(new BookingSlotDTO(tableId, start));
+        return true;
+    }
+
+    /**
+     * Metodo responsável por verificar no banco se existe uma reserva ativa
+     * que ocupe o horário, incluindo as reservas feitas por outras instâncias da aplicação.
+     */
+    public boolean hasConflictInDatabase(Long tableId, LocalDateTime start) {
+        Duration duration = getBookingDuration();
+        return bookingRepository.existsActiveBookingBetween(tableId, start.minus(duration), start.plus(duration));
+    }
+
+    /**
+     * Metodo responsável por liberar o horário de uma mesa,
+     * usado quando a reserva é cancelada.
+     */
+    public void release(Long tableId, LocalDateTime start) {
+        NavigableSet<LocalDateTime> slots = slotsByTable.get(tableId);
+        if(slots != null){
+            slots.remove(start);
+        }
+    }
+
+    /**
+     * Metodo responsável por informar se a mesa possui reservas que ainda não terminaram.
+     */
+    public boolean hasUpcomingBookings(Long tableId) {
+        NavigableSet<LocalDateTime> slots = slotsByTable.get(tableId);
+        return slots != null && slots.higher(LocalDateTime.now().minus(getBookingDuration())) != null;
+    }
+
+    /**
+     * Metodo responsável por remover todos os horários de uma mesa apagada.
+     */
+    public void removeTable(Long tableId) {
+        slotsByTable.remove(tableId);
+    }
+
+    public Duration getBookingDuration() {
+        return Duration.ofMinutes(bookingDurationMinutes);
+    }
+
+    /**
+     * Metodo privado responsável por guardar o horário ocupado na transação atual,
+     * descartado quando ela termina, depois do commit ou rollback.
+     */
+    @SuppressWarnings("unchecked")
+    private void trackInTransaction(BookingSlotDTO slot) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            return;
+        }
+
+        Set<BookingSlotDTO> reserved = (Set<BookingSlotDTO>) TransactionSynchronizationManager.getResource(transactionSlotsKey);
+        if(reserved == null){
+            reserved = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(transactionSlotsKey, reserved);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionSlotsKey);
+                }
+            });
+        }
+        reserved.add(slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isReservedInTransaction(Long tableId, LocalDateTime start) {
+        Set<BookingSlotDTO> reserved = (Set<BookingSlotDTO>) TransactionSynchronizationManager.getResource(transactionSlotsKey);
+        if(reserved == null){
+            return false;
+        }
+
+        Duration duration = getBookingDuration();
+        return reserved.stream().anyMatch(slot -> slot.tableId().equals(tableId)
+                && slot.bookingDate().isAfter(start.minus(duration))
+                && slot.bookingDate().isBefore(start.plus(duration)));
+    }
+
+    private NavigableSet<LocalDateTime> slotsOf(Long tableId) {
+        return slotsByTable.computeIfAbsent(tableId, id -> new ConcurrentSkipListSet<>());
+    }
+
+    private boolean overlaps(NavigableSet<LocalDateTime> slots, LocalDateTime start) {
+        Duration duration = getBookingDuration();
+        return !slots.subSet(start.minus(duration), false, start.plus(duration), false).isEmpty();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.bookingrestaurant.services;
+
+import com.example.bookingrestaurant.dto.RestaurantTableResponseDTO;
+import com.example.bookingrestaurant.model.RestaurantTable;
+import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.repositories.RestaurantTableRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service responsável por manter em memória a planta do restaurante, ou seja, todas as mesas.
+ * As mesas ficam ordenadas pelo id, servindo a listagem paginada sem acessar o banco,
+ * e as mesas ativas ficam agrupadas por capacidade, com um BitSet com os ids das mesas em um mapa ordenado,
+ * assim a busca por mesas livres começa pela menor capacidade que comporta as pessoas,
+ * e a reserva automática escolhe a mesa, ou a combinação de mesas da mesma área, para um grupo.
+ * O snapshot é imutável, versionado e substituído por inteiro a cada alteração das mesas (copy-on-write),
+ * então as leituras não usam lock.
+ * As alterações feitas por outras instâncias chegam pelo FloorPlanNotificationListener e recarregam a mesa alterada.
+ */
+@Service
+public class TableFloorPlanCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableFloorPlanCache.class);
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    @Autowired
+    private RestaurantTableRepository repository;
+
+    @Autowired
+    private TableAvailabilityService availabilityService;
+
+    /**
+     * Metodo responsável por reconstruir o snapshot com todas as mesas do banco principal.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        NavigableMap<Long, RestaurantTableResponseDTO> tables = new TreeMap<>();
+        repository.findAll().forEach(table -> tables.put(table.getId(), RestaurantTableResponseDTO.from(table)));
+
+        Snapshot rebuilt = snapshot.get().next(tables);
+        snapshot.set(rebuilt);
+        logger.info("Planta do restaurante reconstruída com {} mesas (versão {}).", tables.size(), rebuilt.version());
+    }
+
+    /**
+     * Metodo responsável por adicionar ou atualizar uma mesa no snapshot.
+     */
+    public synchronized void put(RestaurantTable table) {
+        NavigableMap<Long, RestaurantTableResponseDTO> tables = new TreeMap<>(snapshot.get().tables());
+        tables.put(table.getId(), RestaurantTableResponseDTO.from(table));
+        snapshot.set(snapshot.get().next(tables));
+    }
+
+    /**
+     * Metodo responsável por remover uma mesa apagada do snapshot.
+     */
+    public synchronized void remove(Long tableId) {
+        NavigableMap<Long, RestaurantTableResponseDTO> tables = new TreeMap<>(snapshot.get().tables());
+        tables.remove(tableId);
+        snapshot.set(snapshot.get().next(tables));
+    }
+
+    /**
+     * Metodo responsável por recarregar do banco principal uma mesa alterada por outra instância da aplicação.
+     * Caso a mesa não exista mais, ela é removida do snapshot e do índice de disponibilidade.
+     */
+    public void refresh(Long tableId) {
+        repository.findById(tableId).ifPresentOrElse(
+                this::put,
+                () -> {
+                    remove(tableId);
+                    availabilityService.removeTable(tableId);
+                });
+        logger.debug("Mesa {} recarregada na planta do restaurante (versão {}).", tableId, getVersion());
+    }
+
+    /**
+     * Metodo responsável por retornar uma página de mesas a partir do cursor (id da última mesa recebida).
+     */
+    public List<RestaurantTableResponseDTO> findPage(long cursor, int limit) {
+        return snapshot.get().tables().tailMap(cursor, false).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Metodo responsável por retornar todas as mesas, ordenadas pelo id.
+     */
+    public Collection<RestaurantTableResponseDTO> findAll() {
+        return snapshot.get().tables().values();
+    }
+
+    /**
+     * Metodo responsável por procurar as mesas livres no horário que comportam a quantidade de pessoas.
+     * Retorna as mesas ordenadas da menor para a maior capacidade.
+     */
+    public List<RestaurantTableResponseDTO> findAvailable(int people, LocalDateTime start) {
+        Snapshot current = snapshot.get();
+        List<RestaurantTableResponseDTO> available = new ArrayList<>();
+
+        for(BitSet ids : current.activeByCapacity().tailMap(people, true).values()){
+            for(int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)){
+                if(availabilityService.isAvailable((long) id, start)){
+                    available.add(current.tables().get((long) id));
+                }
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Metodo responsável por escolher as mesas para um grupo de pessoas no horário.
+     * Primeiro procura a menor mesa livre que comporta o grupo inteiro (best fit).
+     * Caso não exista, junta mesas livres da mesma área, das maiores para as menores,
+     * fechando com a menor mesa que comporta o restante (best fit decreasing),
+     * e escolhe a área que usa menos mesas e, no empate, deixa menos lugares vazios.
+     * As mesas em 'excluded' nunca são escolhidas, como as já ocupadas no banco por outra instância.
+     * Retorna uma lista vazia caso nenhuma combinação de até 'maxTables' mesas comporte o grupo.
+     */
+    public List<RestaurantTableResponseDTO> findAssignment(int people, LocalDateTime start, int maxTables, Set<Long> excluded) {
+        Snapshot current = snapshot.get();
+
+        for(BitSet ids : current.activeByCapacity().tailMap(people, true).values()){
+            for(int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)){
+                if(!excluded.contains((long) id) && availabilityService.isAvailable((long) id, start)){
+                    return List.of(current.tables().get((long) id));
+                }
+            }
+        }
+        if(maxTables < 2){
+            return List.of();
+        }
+
+        // Mesas livres de cada área, já da maior para a menor capacidade
+        Map<String, List<RestaurantTableResponseDTO>> availableByArea = new HashMap<>();
+        for(BitSet ids : current.activeByCapacity().descendingMap().values()){
+            for(int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)){
+                RestaurantTableResponseDTO table = current.tables().get((long) id);
+                if(table.area() != null && !excluded.contains((long) id) && availabilityService.isAvailable((long) id, start)){
+                    availableByArea.computeIfAbsent(table.area(), area -> new ArrayList<>()).add(table);
+                }
+            }
+        }
+
+        List<RestaurantTableResponseDTO> best = List.of();
+        int bestSeats = Integer.MAX_VALUE;
+        for(List<RestaurantTableResponseDTO> candidates : availableByArea.values()){
+            List<RestaurantTableResponseDTO> combination = combine(candidates, people, maxTables);
+            int seats = combination.stream().mapToInt(RestaurantTableResponseDTO::capacity).sum();
+
+            boolean better = !combination.isEmpty() && (best.isEmpty()
+                    || combination.size() < best.size()
+                    || (combination.size() == best.size() && seats < bestSeats));
+            if(better){
+                best = combination;
+                bestSeats = seats;
+            }
+        }
+        return best;
+    }
+
+    public long getVersion() {
+        return snapshot.get().version();
+    }
+
+    /**
+     * Metodo privado com o best fit decreasing de uma área.
+     * Recebe as mesas livres da maior para a menor capacidade e, enquanto nenhuma mesa comporta
+     * o restante do grupo, usa a maior mesa disponível, fechando com a menor mesa que comporta o restante.
+     */
+    private static List<RestaurantTableResponseDTO> combine(List<RestaurantTableResponseDTO> candidates, int people, int maxTables) {
+        List<RestaurantTableResponseDTO> chosen = new ArrayList<>();
+        int remaining = people;
+
+        for(int largest = 0; largest < candidates.size() && chosen.size() < maxTables; largest++){
+            for(int i = candidates.size() - 1; i >= largest; i--){
+                if(candidates.get(i).capacity() >= remaining){
+                    chosen.add(candidates.get(i));
+                    return chosen;
+                }
+            }
+
+            chosen.add(candidates.get(largest));
+            remaining -= candidates.get(largest).capacity();
+        }
+        return List.of();
+    }
+
+    private record Snapshot(long version,
+                            NavigableMap<Long, RestaurantTableResponseDTO> tables,
+                            NavigableMap<Integer, BitSet> activeByCapacity) {
+
+        static final Snapshot EMPTY = new Snapshot(0, Collections.emptyNavigableMap(), Collections.emptyNavigableMap());
+
+        Snapshot next(NavigableMap<Long, RestaurantTableResponseDTO> tables) {
+            NavigableMap<Integer, BitSet> activeByCapacity = new TreeMap<>();
+            tables.values().stream()
+                    .filter(table -> table.status() != RestaurantTableStatus.INACTIVE)
+                    .forEach(table -> activeByCapacity
+                            .computeIfAbsent(table.capacity(), capacity -> new BitSet())
+                            .set(Math.toIntExact(table.id())));
+
+            return new Snapshot(version + 1,
+                    Collections.unmodifiableNavigableMap(tables),
+                    Collections.unmodifiableNavigableMap(activeByCapacity));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.bookingrestaurant.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service responsável pelos locks em memória das mesas de restaurante.
+ * Usa um conjunto fixo de locks (stripes) indexado pelo id da mesa,
+ * assim pedidos para mesas diferentes quase nunca disputam o mesmo lock.
+ * O lock é mantido até o fim da transação atual, liberado depois do commit ou rollback.
+ * Para travar várias mesas, os locks são pegos na ordem do índice dos stripes, e não dos ids das mesas,
+ * já que ids diferentes podem cair no mesmo stripe e a ordem dos ids não evitaria um deadlock.
+ * A garantia entre instâncias da aplicação continua sendo o lock de linha no banco.
+ */
+@Service
+public class TableLockService {
+
+    private final ReentrantLock[] stripes;
+
+    public TableLockService(@Value("${booking.lock.stripes:256}") int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for(int i = 0; i < size; i++){
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Metodo responsável por travar a mesa até o fim da transação atual.
+     * Precisa ser chamado dentro de um metodo transacional.
+     */
+    public void lockForTransaction(Long tableId) {
+        this.lockAllForTransaction(List.of(tableId));
+    }
+
+    /**
+     * Metodo responsável por travar um conjunto de mesas até o fim da transação atual.
+     * Os ids são convertidos nos seus stripes, sem repetição, e travados em ordem crescente,
+     * assim dois lotes com mesas em comum ou no mesmo stripe nunca esperam um pelo outro em ciclo.
+     * Precisa ser chamado dentro de um metodo transacional, uma única vez por transação.
+     */
+    public void lockAllForTransaction(Collection<Long> tableIds) {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            throw new IllegalStateException("O lock da mesa precisa de uma transação ativa");
+        }
+
+        SortedSet<Integer> indexes = new TreeSet<>();
+        tableIds.forEach(tableId -> indexes.add(stripeIndexOf(tableId)));
+
+        List<ReentrantLock> locked = new ArrayList<>(indexes.size());
+        for(int index : indexes){
+            ReentrantLock lock = stripes[index];
+            lock.lock();
+            locked.add(lock);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                for(int i = locked.size() - 1; i >= 0; i--){
+                    locked.get(i).unlock();
+                }
+            }
+        });
+    }
+
+    int stripeIndexOf(Long tableId) {
+        int hash = Long.hashCode(tableId);
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+}
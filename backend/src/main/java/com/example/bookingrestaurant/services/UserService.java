@@ -1,18 +1,21 @@
 package com.example.bookingrestaurant.services;
 
-import com.example.bookingrestaurant.config.exception.BookingException;
+import com.example.bookingrestaurant.config.cache.CacheConfig;
 import com.example.bookingrestaurant.config.exception.UserAlreadyExistsException;
-import com.example.bookingrestaurant.config.security.config.SecurityConfig;
 import com.example.bookingrestaurant.config.security.userdetails.UserAuthenticated;
 import com.example.bookingrestaurant.config.security.userdetails.UserDetailsServiceImpl;
 import com.example.bookingrestaurant.dto.UserPostDTO;
 import com.example.bookingrestaurant.model.RoleName;
 import com.example.bookingrestaurant.model.User;
 import com.example.bookingrestaurant.repositories.UserRepository;
+import com.example.bookingrestaurant.config.metrics.MetricsConfig;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 /**
@@ -23,6 +26,7 @@ import org.springframework.stereotype.Service;
  * Lança as exceções relacionadas com o Usuário.
  */
 @Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
@@ -31,7 +35,7 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private SecurityConfig securityConfig;
+    private PasswordEncoder passwordEncoder;
 
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
@@ -45,6 +49,14 @@ public class UserService {
         return (UserAuthenticated) userDetailsService.loadUserByUsername(email);
     }
 
+    /**
+     * Metodo responsável por obter uma referência gerenciada do usuário a partir do seu id,
+     * sem consultar o banco. Usado para associar o usuário do cache a novas entidades.
+     */
+    public User getUserReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     /**
      * Metodo responsável por checar se um usuário já existe no sistema,
      * e retorna um booleano indicando se o email pode ser usado.
@@ -57,7 +69,9 @@ public class UserService {
     /**
      * Metodo responsável por persistir um usuário no banco de dados.
      * Recebe os dados do novo usuário a partir do AuthenticationController
+     * Remove o email do cache de principals, para que o novo usuário seja lido do banco.
      */
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS_CACHE, key = "#dto.email()")
     public User createUser(UserPostDTO dto) throws UserAlreadyExistsException {
         String email = dto.email();
 
@@ -66,7 +80,7 @@ public class UserService {
         }
 
         String name = dto.name();
-        String password = securityConfig.passwordEncoder().encode(dto.password());
+        String password = passwordEncoder.encode(dto.password());
         RoleName role = dto.role();
 
         User user = new User();
@@ -87,6 +101,6 @@ public class UserService {
      */
     private void saveUser(User user){
         userRepository.save(user);
-        logger.info("Usuário salvo no banco de dados.");
+        logger.debug("Usuário salvo no banco de dados.");
     }
 }
@@ -0,0 +1,42 @@
+-- Schema inicial do sistema de reservas.
+-- Os ids usam sequências com incremento 50, o mesmo allocationSize do otimizador pooled-lo das entidades.
+
+create sequence users_seq start with 1 increment by 50;
+create sequence restaurant_tables_seq start with 1 increment by 50;
+create sequence bookings_seq start with 1 increment by 50;
+
+create table users (
+    id bigint not null,
+    name varchar(120) not null,
+    email varchar(100) not null,
+    password varchar(200) not null,
+    role varchar(50) not null check (role in ('ROLE_ADMINISTRATOR', 'ROLE_CUSTOMER')),
+    constraint pk_users primary key (id),
+    constraint uk_users_email unique (email)
+);
+
+create table restaurant_tables (
+    id bigint not null,
+    name varchar(50) not null,
+    capacity integer not null,
+    restaurant_table_status varchar(70) not null check (restaurant_table_status in ('AVAILABLE', 'BOOKED', 'INACTIVE')),
+    constraint pk_restaurant_tables primary key (id)
+);
+
+create table bookings (
+    id bigint not null,
+    user_id bigint,
+    restaurant_table_id bigint,
+    booking_date timestamp(6),
+    booking_status varchar(60) check (booking_status in ('ACTIVE', 'CANCELED')),
+    constraint pk_bookings primary key (id),
+    constraint fk_bookings_user foreign key (user_id) references users (id),
+    constraint fk_bookings_restaurant_table foreign key (restaurant_table_id) references restaurant_tables (id)
+);
+
+-- Conflito de horário (existsActiveBookingBetween): somente as reservas ativas de uma mesa, ordenadas pelo horário.
+create index idx_bookings_active_table_date on bookings (restaurant_table_id, booking_date)
+    where booking_status = 'ACTIVE';
+
+-- Reservas do usuário (findPageByUserId, streamByUserId, findByUser): paginação por keyset no id.
+create index idx_bookings_user_id on bookings (user_id, id);
@@ -0,0 +1,8 @@
+-- Reservas cujo horário já terminou passam para COMPLETED (ExpiredBookingSweeper).
+alter table bookings drop constraint bookings_booking_status_check;
+alter table bookings add constraint ck_bookings_booking_status
+    check (booking_status in ('ACTIVE', 'CANCELED', 'COMPLETED'));
+
+-- Varredura das reservas ativas vencidas (lockExpiredActiveIds): em ordem de horário, somente as ativas.
+create index idx_bookings_active_date on bookings (booking_date, id)
+    where booking_status = 'ACTIVE';
@@ -0,0 +1,15 @@
+-- Respostas das reservas criadas com o header Idempotency-Key, inseridas na mesma transação da reserva.
+create table idempotency_keys (
+    user_email varchar(100) not null,
+    idempotency_key varchar(100) not null,
+    booking_id bigint not null,
+    table_id bigint,
+    table_name varchar(50),
+    booking_date timestamp(6),
+    booking_status varchar(60) check (booking_status in ('ACTIVE', 'CANCELED', 'COMPLETED')),
+    created_at timestamp(6) not null,
+    constraint pk_idempotency_keys primary key (user_email, idempotency_key)
+);
+
+-- Limpeza das chaves antigas (deleteCreatedBefore).
+create index idx_idempotency_keys_created_at on idempotency_keys (created_at);
@@ -0,0 +1,2 @@
+-- Área (salão) da mesa: a reserva automática só junta mesas da mesma área.
+alter table restaurant_tables add column area varchar(50);
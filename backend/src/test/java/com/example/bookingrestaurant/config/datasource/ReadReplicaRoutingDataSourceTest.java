@@ -0,0 +1,96 @@
+package com.example.bookingrestaurant.config.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testa o roteamento entre o banco principal e a réplica usando dois bancos H2 em memória,
+ * cada um com uma tabela que identifica o banco que respondeu a consulta.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private static final Long USER_ID = 7L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+
+        ReadReplicaRoutingDataSource routingDataSource = new ReadReplicaRoutingDataSource(primary, replica);
+        routingDataSource.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        tracker = new ReadYourWritesTracker(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals("replica", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    void readWriteTransactionsGoToPrimary() {
+        assertEquals("primary", readWrite.execute(status -> currentDatabase()));
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    void readsAfterAWriteGoToPrimaryInsideTheWindow() {
+        readWrite.executeWithoutResult(status -> tracker.recordWrite(USER_ID));
+
+        assertEquals("primary", readOnly.execute(status -> {
+            tracker.routeToPrimaryIfRecent(USER_ID);
+            return currentDatabase();
+        }));
+        assertEquals("replica", readOnly.execute(status -> {
+            tracker.routeToPrimaryIfRecent(USER_ID + 1);
+            return currentDatabase();
+        }));
+    }
+
+    @Test
+    void rolledBackWritesDoNotOpenTheWindow() {
+        readWrite.executeWithoutResult(status -> {
+            tracker.recordWrite(USER_ID);
+            status.setRollbackOnly();
+        });
+
+        assertEquals("replica", readOnly.execute(status -> {
+            tracker.routeToPrimaryIfRecent(USER_ID);
+            return currentDatabase();
+        }));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select name from database_role", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table database_role (name varchar(20))");
+        jdbcTemplate.update("insert into database_role values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bookingrestaurant.config.floorplan;
+
+import com.example.bookingrestaurant.services.TableFloorPlanCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Testa o envio e o tratamento das notificações da planta do restaurante sem o PostgreSQL,
+ * com a planta e o JdbcTemplate substituídos por mocks.
+ */
+class FloorPlanNotificationListenerTest {
+
+    private FloorPlanNotificationListener listener;
+    private TableFloorPlanCache floorPlanCache;
+    private JdbcTemplate jdbcTemplate;
+    private String instanceId;
+
+    @BeforeEach
+    void setUp() {
+        floorPlanCache = mock(TableFloorPlanCache.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        listener = new FloorPlanNotificationListener();
+        ReflectionTestUtils.setField(listener, "floorPlanCache", floorPlanCache);
+        ReflectionTestUtils.setField(listener, "jdbcTemplate", jdbcTemplate);
+        instanceId = (String) ReflectionTestUtils.getField(listener, "instanceId");
+    }
+
+    @Test
+    void publishSendsInstanceAndTableId() {
+        listener.publish(new FloorPlanChangedEvent(7L));
+
+        verify(jdbcTemplate).query(eq("select pg_notify(?, ?)"), any(ResultSetExtractor.class),
+                eq(FloorPlanNotificationListener.CHANNEL), eq(instanceId + ":7"));
+    }
+
+    @Test
+    void notificationFromOtherInstanceRefreshesTable() {
+        listener.handle("outra-instancia:42");
+
+        verify(floorPlanCache).refresh(42L);
+    }
+
+    @Test
+    void notificationFromThisInstanceIsIgnored() {
+        listener.handle(instanceId + ":42");
+
+        verify(floorPlanCache, never()).refresh(anyLong());
+    }
+
+    @Test
+    void invalidNotificationsAreIgnored() {
+        listener.handle("sem-separador");
+        listener.handle("outra-instancia:abc");
+
+        verify(floorPlanCache, never()).refresh(anyLong());
+    }
+
+    @Test
+    void refreshFailureDoesNotStopListener() {
+        doThrow(new IllegalStateException("banco fora")).when(floorPlanCache).refresh(1L);
+
+        listener.handle("outra-instancia:1");
+        listener.handle("outra-instancia:2");
+
+        verify(floorPlanCache).refresh(2L);
+    }
+}
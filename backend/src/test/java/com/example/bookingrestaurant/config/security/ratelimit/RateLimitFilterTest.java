@@ -0,0 +1,92 @@
+package com.example.bookingrestaurant.config.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Testa o RateLimitFilter com um orçamento de 2 requisições e reposição lenta,
+ * separando os clientes pelo IP (login) e pelo subject do token (reservas).
+ */
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        List<RateLimitRule> rules = List.of(
+                new RateLimitRule("auth", AntPathRequestMatcher.antMatcher("/usuarios/login"), 2, 0.01),
+                new RateLimitRule("bookings", AntPathRequestMatcher.antMatcher("/reservas"), 2, 0.01));
+        filter = new RateLimitFilter(rules, 1000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void requestsAboveTheBudgetGetTooManyRequests() throws Exception {
+        assertEquals(HttpStatus.OK.value(), send("/usuarios/login", "10.0.0.1").getStatus());
+        assertEquals(HttpStatus.OK.value(), send("/usuarios/login", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse response = send("/usuarios/login", "10.0.0.1");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void eachClientHasItsOwnBucket() throws Exception {
+        send("/usuarios/login", "10.0.0.1");
+        send("/usuarios/login", "10.0.0.1");
+
+        assertEquals(HttpStatus.OK.value(), send("/usuarios/login", "10.0.0.2").getStatus());
+    }
+
+    @Test
+    void authenticatedRequestsAreKeyedByTokenSubject() throws Exception {
+        authenticate("cliente@email.com");
+        send("/reservas", "10.0.0.1");
+        send("/reservas", "10.0.0.2");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), send("/reservas", "10.0.0.3").getStatus());
+
+        authenticate("outro@email.com");
+        assertEquals(HttpStatus.OK.value(), send("/reservas", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    void routesWithoutRuleAreNotLimited() throws Exception {
+        for(int i = 0; i < 10; i++){
+            assertEquals(HttpStatus.OK.value(), send("/actuator/health", "10.0.0.1").getStatus());
+        }
+    }
+
+    private MockHttpServletResponse send(String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private void authenticate(String subject) {
+        Jwt jwt = Jwt.withTokenValue("token").header("alg", "RS256").subject(subject).build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bookingrestaurant.repositories;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa se as consultas do BookingRepository usam os índices criados pelas migrations.
+ * Aplica as migrations do Flyway em um PostgreSQL real, popula as tabelas
+ * e verifica o plano do EXPLAIN de cada consulta.
+ * É ignorado quando não existe Docker disponível.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BookingIndexExplainTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @BeforeAll
+    static void migrateAndPopulate() throws SQLException {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+
+        try(Connection connection = connect(); Statement statement = connection.createStatement()){
+            statement.execute("""
+                    insert into users (id, name, email, password, role)
+                    select i, 'Cliente ' || i, 'cliente' || i || '@teste.com', 'senha', 'ROLE_CUSTOMER'
+                    from generate_series(1, 1000) i
+                    """);
+            statement.execute("""
+                    insert into restaurant_tables (id, name, capacity, restaurant_table_status)
+                    select i, 'MESA-' || i, 2 + i % 19, 'AVAILABLE'
+                    from generate_series(1, 200) i
+                    """);
+            statement.execute("""
+                    insert into bookings (id, user_id, restaurant_table_id, booking_date, booking_status)
+                    select i,
+                           1 + i % 1000,
+                           case when i % 5 = 0 then 1 + i % 200 end,
+                           localtimestamp + (i % 43200) * interval '1 minute',
+                           case when i % 5 = 0 then 'ACTIVE' else 'CANCELED' end
+                    from generate_series(1, 200000) i
+                    """);
+            statement.execute("analyze");
+        }
+    }
+
+    @Test
+    void bookingConflictCheckUsesActiveTableDateIndex() throws SQLException {
+        String plan = explain("""
+                select count(b.id) > 0
+                from bookings b
+                where b.restaurant_table_id = 42
+                  and b.booking_status = 'ACTIVE'
+                  and b.booking_date > localtimestamp + interval '3 days'
+                  and b.booking_date < localtimestamp + interval '3 days 4 hours'
+                """);
+
+        assertTrue(plan.contains("idx_bookings_active_table_date"), plan);
+    }
+
+    @Test
+    void userBookingPageUsesUserIdIndex() throws SQLException {
+        String plan = explain("""
+                select b.id, t.id, t.name, b.booking_date, b.booking_status
+                from bookings b
+                left join restaurant_tables t on t.id = b.restaurant_table_id
+                where b.user_id = 7 and b.id > 0
+                order by b.id
+                fetch first 50 rows only
+                """);
+
+        assertTrue(plan.contains("idx_bookings_user_id"), plan);
+    }
+
+    private static String explain(String query) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try(Connection connection = connect();
+            Statement statement = connection.createStatement();
+            ResultSet result = statement.executeQuery("explain " + query)){
+            while(result.next()){
+                plan.append(result.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.bookingrestaurant.services;
+
+import com.example.bookingrestaurant.config.exception.InvalidRestaurantTableException;
+import com.example.bookingrestaurant.model.RestaurantTable;
+import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.repositories.BookingRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testa o índice de disponibilidade com o BookingRepository substituído por um mock,
+ * onde o banco não tem nenhuma reserva ativa: os horários do índice que não estão no banco
+ * só podem ser removidos quando não foram ocupados pela transação atual.
+ */
+class TableAvailabilityServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 10, 20, 0);
+
+    private TableAvailabilityService availabilityService;
+    private RestaurantTableService restaurantTableService;
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.existsActiveBookingBetween(eq(1L), any(), any())).thenReturn(false);
+
+        availabilityService = new TableAvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(availabilityService, "bookingDurationMinutes", 120L);
+
+        restaurantTableService = new RestaurantTableService();
+        ReflectionTestUtils.setField(restaurantTableService, "availabilityService", availabilityService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    @Test
+    void staleSlotIsEvicted() {
+        assertTrue(availabilityService.reserve(1L, START));
+
+        assertFalse(availabilityService.isBooked(1L, START.plusMinutes(30)));
+        assertTrue(availabilityService.isAvailable(1L, START));
+    }
+
+    @Test
+    void slotReservedInCurrentTransactionIsKept() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(availabilityService.reserve(1L, START));
+
+        assertTrue(availabilityService.isBooked(1L, START.plusMinutes(30)));
+        assertFalse(availabilityService.isAvailable(1L, START));
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertFalse(availabilityService.isBooked(1L, START.plusMinutes(30)));
+    }
+
+    @Test
+    void sameTableBatchIsRejected() throws InvalidRestaurantTableException {
+        RestaurantTable table = new RestaurantTable();
+        table.setId(1L);
+        table.setStatus(RestaurantTableStatus.AVAILABLE);
+
+        TransactionSynchronizationManager.initSynchronization();
+        restaurantTableService.reserveTable(table, START);
+
+        assertThrows(InvalidRestaurantTableException.class,
+                () -> restaurantTableService.reserveTable(table, START.plusMinutes(30)));
+        assertFalse(availabilityService.isAvailable(1L, START));
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
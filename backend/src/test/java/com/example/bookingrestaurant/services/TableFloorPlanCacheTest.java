@@ -0,0 +1,193 @@
+package com.example.bookingrestaurant.services;
+
+import com.example.bookingrestaurant.dto.RestaurantTableResponseDTO;
+import com.example.bookingrestaurant.model.RestaurantTable;
+import com.example.bookingrestaurant.model.RestaurantTableStatus;
+import com.example.bookingrestaurant.repositories.RestaurantTableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testa o versionamento do snapshot da planta do restaurante, a listagem paginada por cursor
+ * e a escolha de mesas da reserva automática, com o repositório e o índice de disponibilidade
+ * substituídos por mocks, onde todas as mesas estão livres no horário.
+ */
+class TableFloorPlanCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 10, 20, 0);
+
+    private TableFloorPlanCache floorPlanCache;
+    private RestaurantTableRepository repository;
+    private TableAvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RestaurantTableRepository.class);
+        availabilityService = mock(TableAvailabilityService.class);
+        when(availabilityService.isAvailable(anyLong(), any())).thenReturn(true);
+
+        floorPlanCache = new TableFloorPlanCache();
+        ReflectionTestUtils.setField(floorPlanCache, "repository", repository);
+        ReflectionTestUtils.setField(floorPlanCache, "availabilityService", availabilityService);
+    }
+
+    @Test
+    void putAndRemoveCreateNewVersions() {
+        assertEquals(0, floorPlanCache.getVersion());
+
+        floorPlanCache.put(table(1L, 4, RestaurantTableStatus.AVAILABLE));
+        floorPlanCache.put(table(2L, 2, RestaurantTableStatus.AVAILABLE));
+        assertEquals(2, floorPlanCache.getVersion());
+
+        floorPlanCache.put(table(1L, 6, RestaurantTableStatus.BOOKED));
+        assertEquals(3, floorPlanCache.getVersion());
+        assertEquals(6, floorPlanCache.findPage(0, 1).get(0).capacity());
+        assertEquals(RestaurantTableStatus.BOOKED, floorPlanCache.findPage(0, 1).get(0).status());
+
+        floorPlanCache.remove(2L);
+        assertEquals(4, floorPlanCache.getVersion());
+        assertEquals(List.of(1L), ids(floorPlanCache.findAll()));
+    }
+
+    @Test
+    void oldSnapshotIsNotChangedByLaterVersions() {
+        floorPlanCache.put(table(1L, 4, RestaurantTableStatus.AVAILABLE));
+        List<RestaurantTableResponseDTO> page = floorPlanCache.findPage(0, 10);
+
+        floorPlanCache.put(table(2L, 4, RestaurantTableStatus.AVAILABLE));
+
+        assertEquals(List.of(1L), ids(page));
+        assertEquals(List.of(1L, 2L), ids(floorPlanCache.findPage(0, 10)));
+    }
+
+    @Test
+    void refreshReloadsChangedTable() {
+        floorPlanCache.put(table(1L, 4, RestaurantTableStatus.AVAILABLE));
+        when(repository.findById(1L)).thenReturn(Optional.of(table(1L, 4, RestaurantTableStatus.INACTIVE)));
+
+        floorPlanCache.refresh(1L);
+
+        assertEquals(2, floorPlanCache.getVersion());
+        assertEquals(RestaurantTableStatus.INACTIVE, floorPlanCache.findPage(0, 1).get(0).status());
+        verify(availabilityService, never()).removeTable(1L);
+    }
+
+    @Test
+    void refreshRemovesDeletedTable() {
+        floorPlanCache.put(table(1L, 4, RestaurantTableStatus.AVAILABLE));
+        when(repository.findById(1L)).thenReturn(Optional.empty());
+
+        floorPlanCache.refresh(1L);
+
+        assertEquals(2, floorPlanCache.getVersion());
+        assertTrue(floorPlanCache.findAll().isEmpty());
+        verify(availabilityService).removeTable(1L);
+    }
+
+    @Test
+    void findPageStartsAfterCursor() {
+        for(long id = 1; id <= 5; id++){
+            floorPlanCache.put(table(id, 2, RestaurantTableStatus.AVAILABLE));
+        }
+
+        assertEquals(List.of(1L, 2L), ids(floorPlanCache.findPage(0, 2)));
+        assertEquals(List.of(3L, 4L), ids(floorPlanCache.findPage(2, 2)));
+        assertEquals(List.of(5L), ids(floorPlanCache.findPage(4, 2)));
+        assertTrue(floorPlanCache.findPage(5, 2).isEmpty());
+    }
+
+    @Test
+    void assignmentPicksSmallestTableThatFits() {
+        floorPlanCache.put(tableInArea(1L, 2, "A"));
+        floorPlanCache.put(tableInArea(2L, 6, "A"));
+        floorPlanCache.put(tableInArea(3L, 4, "B"));
+
+        assertEquals(List.of(3L), ids(floorPlanCache.findAssignment(4, START, 4, Set.of())));
+    }
+
+    @Test
+    void combinationClosesWithSmallestTableThatFits() {
+        floorPlanCache.put(tableInArea(1L, 8, "A"));
+        floorPlanCache.put(tableInArea(2L, 6, "A"));
+        floorPlanCache.put(tableInArea(3L, 4, "A"));
+        floorPlanCache.put(tableInArea(4L, 2, "A"));
+
+        assertEquals(List.of(1L, 4L), ids(floorPlanCache.findAssignment(10, START, 4, Set.of())));
+    }
+
+    @Test
+    void combinationAboveMaxTablesIsEmpty() {
+        floorPlanCache.put(tableInArea(1L, 8, "A"));
+        floorPlanCache.put(tableInArea(2L, 6, "A"));
+        floorPlanCache.put(tableInArea(3L, 4, "A"));
+
+        assertTrue(floorPlanCache.findAssignment(18, START, 2, Set.of()).isEmpty());
+        assertEquals(List.of(1L, 2L, 3L), ids(floorPlanCache.findAssignment(18, START, 3, Set.of())));
+    }
+
+    @Test
+    void excludedTablesAreSkipped() {
+        floorPlanCache.put(tableInArea(1L, 4, "A"));
+        floorPlanCache.put(tableInArea(2L, 6, "A"));
+        floorPlanCache.put(tableInArea(3L, 3, "A"));
+
+        assertEquals(List.of(2L), ids(floorPlanCache.findAssignment(4, START, 4, Set.of(1L))));
+        assertEquals(List.of(1L, 3L), ids(floorPlanCache.findAssignment(7, START, 4, Set.of(2L))));
+    }
+
+    @Test
+    void tablesWithoutAreaAreNeverCombined() {
+        floorPlanCache.put(tableInArea(1L, 8, null));
+        floorPlanCache.put(tableInArea(2L, 6, null));
+
+        assertEquals(List.of(1L), ids(floorPlanCache.findAssignment(8, START, 4, Set.of())));
+        assertTrue(floorPlanCache.findAssignment(10, START, 4, Set.of()).isEmpty());
+    }
+
+    @Test
+    void areaWithFewerEmptySeatsWins() {
+        floorPlanCache.put(tableInArea(1L, 8, "A"));
+        floorPlanCache.put(tableInArea(2L, 4, "A"));
+        floorPlanCache.put(tableInArea(3L, 7, "B"));
+        floorPlanCache.put(tableInArea(4L, 3, "B"));
+
+        assertEquals(List.of(3L, 4L), ids(floorPlanCache.findAssignment(10, START, 4, Set.of())));
+    }
+
+    private static RestaurantTable table(Long id, int capacity, RestaurantTableStatus status) {
+        RestaurantTable table = new RestaurantTable();
+        table.setId(id);
+        table.setName("Mesa " + id);
+        table.setCapacity(capacity);
+        table.setStatus(status);
+        return table;
+    }
+
+    private static RestaurantTable tableInArea(Long id, int capacity, String area) {
+        RestaurantTable table = table(id, capacity, RestaurantTableStatus.AVAILABLE);
+        table.setArea(area);
+        return table;
+    }
+
+    private static List<Long> ids(Iterable<RestaurantTableResponseDTO> tables) {
+        List<Long> ids = new ArrayList<>();
+        tables.forEach(table -> ids.add(table.id()));
+        return ids;
+    }
+}
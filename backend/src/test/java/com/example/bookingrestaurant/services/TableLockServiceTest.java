@@ -0,0 +1,102 @@
+package com.example.bookingrestaurant.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testa os locks das mesas com 256 stripes, onde as mesas 1 e 257 caem no mesmo stripe, assim como 44 e 300.
+ * Na ordem dos ids, os lotes {1, 300} e {44, 257} travariam os stripes 1 -> 44 e 44 -> 1.
+ */
+class TableLockServiceTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    private final TableLockService lockService = new TableLockService(256);
+
+    @AfterEach
+    void tearDown() {
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void collidingIdsShareStripes() {
+        assertEquals(lockService.stripeIndexOf(1L), lockService.stripeIndexOf(257L));
+        assertEquals(lockService.stripeIndexOf(44L), lockService.stripeIndexOf(300L));
+    }
+
+    @Test
+    void batchesWithCollidingStripesDoNotDeadlock() throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread first = lockingThread(List.of(1L, 300L), start, failure);
+        Thread second = lockingThread(List.of(44L, 257L), start, failure);
+        first.start();
+        second.start();
+        start.countDown();
+
+        first.join(TimeUnit.SECONDS.toMillis(30));
+        second.join(TimeUnit.SECONDS.toMillis(30));
+
+        assertTrue(!first.isAlive() && !second.isAlive(), "Os lotes ficaram travados um esperando o outro");
+        assertNull(failure.get());
+    }
+
+    @Test
+    void locksAreReleasedAfterCompletion() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        lockService.lockAllForTransaction(List.of(1L, 257L, 44L));
+        completeTransaction();
+
+        Thread other = lockingThread(List.of(257L, 300L), new CountDownLatch(0), new AtomicReference<>());
+        other.start();
+        other.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertTrue(!other.isAlive(), "Os stripes continuaram travados depois da transação");
+    }
+
+    @Test
+    void lockRequiresActiveTransaction() {
+        assertThrows(IllegalStateException.class, () -> lockService.lockAllForTransaction(List.of(1L)));
+    }
+
+    private Thread lockingThread(List<Long> tableIds, CountDownLatch start, AtomicReference<Throwable> failure) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                for(int i = 0; i < ITERATIONS; i++){
+                    TransactionSynchronizationManager.initSynchronization();
+                    try {
+                        lockService.lockAllForTransaction(tableIds);
+                    } finally {
+                        completeTransaction();
+                    }
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}